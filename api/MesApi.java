@@ -9,6 +9,18 @@ import com.ehg.abas.projekt.mes.invoker.ApiException;
 
 public class MesApi {
 
+    private static final MesLayout LAYOUT_AUFTRAG = MesLayout.compile(genSatzAuftrag());
+
+    // Feldindizes der Satzart 100 für MesRecord
+    public static final int FELD_RICHTUNG = LAYOUT_AUFTRAG.indexOf("Richtung");
+    public static final int FELD_SATZART = LAYOUT_AUFTRAG.indexOf("Satzart");
+    public static final int FELD_LOGIK = LAYOUT_AUFTRAG.indexOf("Logik");
+    public static final int FELD_LEER = LAYOUT_AUFTRAG.indexOf("Leer");
+    public static final int FELD_DATUM = LAYOUT_AUFTRAG.indexOf("Datum");
+    public static final int FELD_AKNR = LAYOUT_AUFTRAG.indexOf("AKNr");
+    public static final int FELD_KUNDAUFTRNR = LAYOUT_AUFTRAG.indexOf("KundAuftrNr");
+    public static final int FELD_RUECKMELDNR = LAYOUT_AUFTRAG.indexOf("RueckmeldNr");
+
     public static List<MesSatz> genSatzAuftrag() {
         List<MesSatz> dataList = new ArrayList<>();
 
@@ -24,6 +36,33 @@ public class MesApi {
         return dataList;
     }
 
+    /**
+     * Gets the compiled layout of {@link #genSatzAuftrag()}.
+     *
+     * @return The shared layout for Satzart 100.
+     */
+    public static MesLayout layoutAuftrag() {
+        return LAYOUT_AUFTRAG;
+    }
+
+    /**
+     * Creates a reusable record for Satzart 100, filled with the default values.
+     *
+     * @return A new record; fill it with the {@code FELD_} indices of this class.
+     */
+    public static MesRecord newAuftrag() {
+        return new MesRecord(LAYOUT_AUFTRAG);
+    }
+
+    /**
+     * Sets a value by field name, scanning the whole field list.
+     *
+     * @param satz The field list.
+     * @param name The field name.
+     * @param wert The value.
+     * @deprecated Use a {@link MesRecord} with precomputed field indices instead.
+     */
+    @Deprecated
     public static void setzeWert(List<MesSatz> satz, String name ,String wert) {
         for (MesSatz feld : satz) {
             if (feld.getName().equals(name)) {
@@ -46,6 +85,23 @@ public class MesApi {
         client.setBasePath("http://your.api.endpoint");
         System.out.println(client.getBasePath());
 
+        ImportAuftragsdatenApi auftragsdaten = new ImportAuftragsdatenApi(client);
+        try {
+            importiere(auftragsdaten, body);
+        } catch (ApiException e) {
+            System.out.println("API Exception: " + e.getMessage());
+        }
+
+    }
+
+    /**
+     * Sends an order body through a configured import API, without optional parameters.
+     *
+     * @param auftragsdaten The import API.
+     * @param body          The rendered records.
+     * @throws ApiException If the MES endpoint rejects the order or cannot be reached.
+     */
+    static void importiere(ImportAuftragsdatenApi auftragsdaten, String body) throws ApiException {
         // Optionale Parameter für den API-Aufruf
         String language = null;
         Integer crosscompany = null;
@@ -58,15 +114,9 @@ public class MesApi {
         Long callid = null;
         Integer netzbildung = null;
         Integer verknuepfen = null;
-        
-        ImportAuftragsdatenApi auftragsdaten = new ImportAuftragsdatenApi(client);
-        try {
-            auftragsdaten.importAuftragsdatenWithHttpInfo(language, crosscompany, dataview, company, timeout, 
-                pNlsLanguage, pNlsTerritory, pNlsSort, callid, netzbildung, verknuepfen, body);
-        } catch (ApiException e) {
-            System.out.println("API Exception: " + e.getMessage());
-        }
 
+        auftragsdaten.importAuftragsdatenWithHttpInfo(language, crosscompany, dataview, company, timeout,
+            pNlsLanguage, pNlsTerritory, pNlsSort, callid, netzbildung, verknuepfen, body);
     }
 
 }
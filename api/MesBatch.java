@@ -0,0 +1,151 @@
+package api;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+
+/**
+ * Renders large batches of MES records on all cores.
+ * <p>
+ * The order list is split into chunks of {@value #CHUNK_RECORDS} records. Chunks are
+ * rendered in parallel on a {@link ForkJoinPool}, each into its own byte buffer with its
+ * own {@link MesRecord}, and written to a {@link MesWriter} strictly in the original
+ * order. At most two chunks per worker are rendered ahead of the writer, and chunk
+ * buffers are recycled, so memory stays bounded for any batch size while throughput
+ * grows with the number of cores.
+ * </p>
+ */
+public final class MesBatch {
+    static final int CHUNK_RECORDS = 4096;
+
+    private MesBatch() {
+    }
+
+    /**
+     * Renders field lists, e.g. from {@link MesApi#genSatzAuftrag()}, on the common pool.
+     *
+     * @param saetze The records as field lists, created for the layout of the writer.
+     * @param writer The writer receiving the records in order.
+     * @return The number of records written.
+     * @throws IOException If the writer fails.
+     */
+    public static long render(List<List<MesSatz>> saetze, MesWriter writer) throws IOException {
+        MesLayout layout = writer.getLayout();
+        return render(saetze, writer, ForkJoinPool.commonPool(), (satz, record) -> layout.encode(satz, record.line(), 0));
+    }
+
+    /**
+     * Renders orders on the common pool. For every order the filler receives a record
+     * reset to the layout defaults and sets its fields.
+     *
+     * @param <T>    The type of the orders.
+     * @param orders The orders.
+     * @param writer The writer receiving the records in order.
+     * @param filler Fills a record from an order; it is called from several threads.
+     * @return The number of records written.
+     * @throws IOException If the writer fails.
+     */
+    public static <T> long render(List<T> orders, MesWriter writer, BiConsumer<? super T, MesRecord> filler) throws IOException {
+        return render(orders, writer, ForkJoinPool.commonPool(), filler);
+    }
+
+    /**
+     * Renders orders on the given pool.
+     *
+     * @param <T>    The type of the orders.
+     * @param orders The orders.
+     * @param writer The writer receiving the records in order.
+     * @param pool   The pool rendering the chunks.
+     * @param filler Fills a record from an order; it is called from several threads.
+     * @return The number of records written.
+     * @throws IOException If the writer fails.
+     */
+    public static <T> long render(List<T> orders, MesWriter writer, ForkJoinPool pool, BiConsumer<? super T, MesRecord> filler) throws IOException {
+        MesLayout layout = writer.getLayout();
+        byte[] separator = new byte[writer.getSeparator().length()];
+        MesWriter.toLatin1(writer.getSeparator().toCharArray(), 0, separator.length, separator, 0);
+        int stride = layout.getLineLength() + separator.length;
+
+        int chunks = (orders.size() + CHUNK_RECORDS - 1) / CHUNK_RECORDS;
+        int window = Math.max(2, pool.getParallelism() * 2);
+        ConcurrentLinkedQueue<byte[]> buffers = new ConcurrentLinkedQueue<>();
+        ArrayDeque<ChunkTask<T>> pending = new ArrayDeque<>();
+
+        int next = 0;
+        try {
+            while (next < chunks || !pending.isEmpty()) {
+                while (next < chunks && pending.size() < window) {
+                    int from = next * CHUNK_RECORDS;
+                    int to = Math.min(orders.size(), from + CHUNK_RECORDS);
+                    ChunkTask<T> task = new ChunkTask<>(orders.subList(from, to), layout, separator, stride, filler, buffers);
+                    pool.execute(task);
+                    pending.add(task);
+                    next++;
+                }
+
+                // In Originalreihenfolge schreiben, sobald der älteste Block fertig ist
+                ChunkTask<T> task = pending.poll();
+                byte[] chunk = task.join();
+                writer.writeBytes(chunk, 0, task.size() * stride);
+                writer.addCount(task.size());
+                buffers.offer(chunk);
+            }
+        } finally {
+            for (ChunkTask<T> task : pending) {
+                task.cancel(false);
+            }
+        }
+        return orders.size();
+    }
+
+    private static final class ChunkTask<T> extends RecursiveTask<byte[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<T> orders;
+        private final MesLayout layout;
+        private final byte[] separator;
+        private final int stride;
+        private final BiConsumer<? super T, MesRecord> filler;
+        private final ConcurrentLinkedQueue<byte[]> buffers;
+
+        private ChunkTask(List<T> orders, MesLayout layout, byte[] separator, int stride,
+                BiConsumer<? super T, MesRecord> filler, ConcurrentLinkedQueue<byte[]> buffers) {
+            this.orders = orders;
+            this.layout = layout;
+            this.separator = separator;
+            this.stride = stride;
+            this.filler = filler;
+            this.buffers = buffers;
+        }
+
+        private int size() {
+            return this.orders.size();
+        }
+
+        @Override
+        protected byte[] compute() {
+            byte[] chunk = this.buffers.poll();
+            if (chunk == null) {
+                chunk = new byte[CHUNK_RECORDS * this.stride];
+            }
+
+            MesRecord record = new MesRecord(this.layout);
+            char[] line = record.line();
+            int lineLength = this.layout.getLineLength();
+            int position = 0;
+            for (T order : this.orders) {
+                record.reset();
+                this.filler.accept(order, record);
+                MesWriter.toLatin1(line, 0, lineLength, chunk, position);
+                System.arraycopy(this.separator, 0, chunk, position + lineLength, this.separator.length);
+                position += this.stride;
+            }
+            return chunk;
+        }
+    }
+
+}
@@ -0,0 +1,254 @@
+package api;
+
+/**
+ * Calendar arithmetic for MES date fields (yyMMddHHmmss) on primitives.
+ * <p>
+ * The methods work on plain numbers so that date fields can be decoded and encoded
+ * without going through {@link java.time.format.DateTimeFormatter}. Epoch seconds are
+ * counted in local time, i.e. like {@code LocalDateTime.toEpochSecond(ZoneOffset.UTC)}.
+ * </p>
+ */
+final class MesDatum {
+    private static final long SECONDS_PER_DAY = 86400L;
+    private static final int[] DAYS_IN_MONTH = { 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+
+    // Zweistellige Jahre ab diesem Wert liegen im 20. Jahrhundert
+    private static final int PIVOT_YEAR = 70;
+
+    // Länge eines Datums im Eingabeformat dd.MM.yyyy HH:mm:ss
+    private static final int LAENGE_EINGABE = 19;
+
+    // Ersatzwert für ungültige Daten, einmal kodiert
+    private static final char[] FALLBACK = new char[MesSatz.LAENGE_DATUM];
+
+    static {
+        if (!parse(MesSatz.DATUM_FALLBACK, FALLBACK, 0)) {
+            throw new ExceptionInInitializerError("Invalid fallback date " + MesSatz.DATUM_FALLBACK + ".");
+        }
+    }
+
+    private MesDatum() {
+    }
+
+    /**
+     * Checks whether a year is a leap year in the ISO calendar.
+     *
+     * @param year The year.
+     * @return true if the year is a leap year.
+     */
+    static boolean isLeapYear(long year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /**
+     * Gets the number of days of a month.
+     *
+     * @param year  The year.
+     * @param month The month, 1 to 12.
+     * @return The number of days.
+     */
+    static int lengthOfMonth(long year, int month) {
+        return (month == 2 && isLeapYear(year)) ? 29 : DAYS_IN_MONTH[month - 1];
+    }
+
+    /**
+     * Checks whether the given values form a valid date and time.
+     *
+     * @param year   The year.
+     * @param month  The month, 1 to 12.
+     * @param day    The day of month.
+     * @param hour   The hour, 0 to 23.
+     * @param minute The minute.
+     * @param second The second.
+     * @return true if all values are in range.
+     */
+    static boolean isValid(long year, int month, int day, int hour, int minute, int second) {
+        return month >= 1 && month <= 12
+                && day >= 1 && day <= lengthOfMonth(year, month)
+                && hour >= 0 && hour <= 23
+                && minute >= 0 && minute <= 59
+                && second >= 0 && second <= 59;
+    }
+
+    /**
+     * Converts a date and time to epoch seconds. The values must be valid.
+     *
+     * @param year   The year.
+     * @param month  The month, 1 to 12.
+     * @param day    The day of month.
+     * @param hour   The hour, 0 to 23.
+     * @param minute The minute.
+     * @param second The second.
+     * @return The seconds since 1970-01-01T00:00:00.
+     */
+    static long toEpochSecond(long year, int month, int day, int hour, int minute, int second) {
+        return toEpochDay(year, month, day) * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second;
+    }
+
+    /**
+     * Converts a date to the number of days since 1970-01-01.
+     * Uses the days-from-civil algorithm on a calendar starting in March.
+     *
+     * @param year  The year.
+     * @param month The month, 1 to 12.
+     * @param day   The day of month.
+     * @return The epoch day.
+     */
+    static long toEpochDay(long year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yoe = y - era * 400;
+        long doy = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    /**
+     * Expands the two-digit year of a date field. Years 70 to 99 are read as 1970 to 1999,
+     * years 00 to 69 as 2000 to 2069, so that the dates the MES fields are written with,
+     * e.g. the layout default 01.01.1980 and {@link MesSatz#DATUM_FALLBACK}, read back
+     * unchanged.
+     *
+     * @param yy The two-digit year, 0 to 99.
+     * @return The year.
+     */
+    static int expandYear(int yy) {
+        return yy >= PIVOT_YEAR ? 1900 + yy : 2000 + yy;
+    }
+
+    /**
+     * Writes a date and time as yyMMddHHmmss. The year is written like the pattern "yy"
+     * of {@link java.time.format.DateTimeFormatter}, i.e. as the last two digits of the
+     * year of era.
+     *
+     * @param year   The year.
+     * @param month  The month, 1 to 12.
+     * @param day    The day of month.
+     * @param hour   The hour, 0 to 23.
+     * @param minute The minute.
+     * @param second The second.
+     * @param dst    The line buffer.
+     * @param off    The position of the field in the line buffer.
+     */
+    static void format(long year, int month, int day, int hour, int minute, int second, char[] dst, int off) {
+        long yearOfEra = year >= 1 ? year : 1 - year;
+        digits2((int) (yearOfEra % 100), dst, off);
+        digits2(month, dst, off + 2);
+        digits2(day, dst, off + 4);
+        digits2(hour, dst, off + 6);
+        digits2(minute, dst, off + 8);
+        digits2(second, dst, off + 10);
+    }
+
+    /**
+     * Writes epoch seconds, counted in local time, as yyMMddHHmmss.
+     * Uses the civil-from-days algorithm, the inverse of {@link #toEpochDay(long, int, int)}.
+     *
+     * @param epochSecond The seconds since 1970-01-01T00:00:00.
+     * @param dst         The line buffer.
+     * @param off         The position of the field in the line buffer.
+     */
+    static void formatEpochSecond(long epochSecond, char[] dst, int off) {
+        long epochDay = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+        int secondOfDay = (int) Math.floorMod(epochSecond, SECONDS_PER_DAY);
+
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int day = (int) (doy - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+
+        format(year, month, day, secondOfDay / 3600, secondOfDay / 60 % 60, secondOfDay % 60, dst, off);
+    }
+
+    /**
+     * Converts a date value from "dd.MM.yyyy HH:mm:ss" to yyMMddHHmmss without
+     * allocating and without exceptions. Invalid values write the encoded
+     * {@link MesSatz#DATUM_FALLBACK}.
+     * <p>
+     * Values are resolved like {@link java.time.format.ResolverStyle#SMART}: a day past
+     * the end of the month is moved to its last day and 24:00:00 is midnight of the next
+     * day. Years with more than four digits are rare and are handed to
+     * {@link MesSatz#parseDatum(String, char[], int)}.
+     * </p>
+     *
+     * @param wert The date value; null is invalid.
+     * @param dst  The line buffer.
+     * @param off  The position of the field in the line buffer.
+     * @return true if the value was valid, false if the fallback was written.
+     */
+    static boolean encode(String wert, char[] dst, int off) {
+        if (wert != null && wert.length() > LAENGE_EINGABE) {
+            return MesSatz.parseDatum(wert, dst, off);
+        }
+        if (parse(wert, dst, off)) {
+            return true;
+        }
+        System.arraycopy(FALLBACK, 0, dst, off, FALLBACK.length);
+        return false;
+    }
+
+    /**
+     * Parses exactly "dd.MM.yyyy HH:mm:ss" with a four-digit year and writes yyMMddHHmmss.
+     *
+     * @return true if the value was valid; nothing is written otherwise.
+     */
+    private static boolean parse(String wert, char[] dst, int off) {
+        if (wert == null || wert.length() != LAENGE_EINGABE
+                || wert.charAt(2) != '.' || wert.charAt(5) != '.' || wert.charAt(10) != ' '
+                || wert.charAt(13) != ':' || wert.charAt(16) != ':') {
+            return false;
+        }
+
+        int day = digits(wert, 0, 2);
+        int month = digits(wert, 3, 2);
+        int year = digits(wert, 6, 4);
+        int hour = digits(wert, 11, 2);
+        int minute = digits(wert, 14, 2);
+        int second = digits(wert, 17, 2);
+        if ((day | month | year | hour | minute | second) < 0
+                || year < 1 || month < 1 || month > 12 || day < 1 || day > 31
+                || hour > 24 || minute > 59 || second > 59) {
+            return false;
+        }
+
+        day = Math.min(day, lengthOfMonth(year, month));
+        if (hour == 24) {
+            // 24:00:00 ist Mitternacht des Folgetages
+            if (minute != 0 || second != 0) {
+                return false;
+            }
+            formatEpochSecond(toEpochDay(year, month, day) * SECONDS_PER_DAY + SECONDS_PER_DAY, dst, off);
+            return true;
+        }
+        format(year, month, day, hour, minute, second, dst, off);
+        return true;
+    }
+
+    /**
+     * Reads ASCII digits.
+     *
+     * @return The number, or -1 if one of the characters is not a digit.
+     */
+    private static int digits(String wert, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = wert.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static void digits2(int value, char[] dst, int off) {
+        dst[off] = (char) ('0' + value / 10);
+        dst[off + 1] = (char) ('0' + value % 10);
+    }
+
+}
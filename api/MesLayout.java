@@ -0,0 +1,294 @@
+package api;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compiled fixed-width layout of an MES record (Satz).
+ * <p>
+ * The layout is built once from a field list such as {@link MesApi#genSatzAuftrag()} and
+ * keeps the position, length, type and default value of every field in flat arrays.
+ * Encoding writes each field at its offset straight into a caller-supplied line buffer,
+ * so rendering a record allocates nothing per field. The output is identical to
+ * concatenating {@link MesSatz#toString()} over all fields.
+ * </p>
+ *
+ * <p>
+ * Instances are immutable and may be shared between threads; line buffers may not.
+ * </p>
+ */
+public final class MesLayout {
+    private final String[] names;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final char[] types;
+    private final String[] defaults;
+    private final char[][] encodedDefaults;
+    private final char[] template;
+    private final Map<String, Integer> index;
+
+    private MesLayout(List<MesSatz> felder) {
+        int size = felder.size();
+        this.names = new String[size];
+        this.offsets = new int[size];
+        this.lengths = new int[size];
+        this.types = new char[size];
+        this.defaults = new String[size];
+        this.encodedDefaults = new char[size][];
+        this.index = new HashMap<>();
+
+        int position = 0;
+        for (int i = 0; i < size; i++) {
+            MesSatz feld = felder.get(i);
+            String name = feld.getName();
+
+            if (name == null) {
+                throw new IllegalArgumentException("Field " + (i + 1) + " has no name.");
+            }
+            if (this.index.put(name, i) != null) {
+                throw new IllegalArgumentException("Field " + name + " is defined more than once.");
+            }
+            if (feld.getVon() == null || feld.getLaenge() == null || feld.getLaenge() < 1) {
+                throw new IllegalArgumentException("Field " + name + " needs a position and a positive length.");
+            }
+
+            int von = feld.getVon() - 1;
+            if (von < position) {
+                throw new IllegalArgumentException("Field " + name + " at " + feld.getVon() + " overlaps the previous field ending at " + position + ".");
+            }
+            if (von > position) {
+                throw new IllegalArgumentException("Field " + name + " at " + feld.getVon() + " leaves a gap after position " + position + ".");
+            }
+
+            char typ = normalizeType(feld.getTyp());
+            if (typ == 'D' && feld.getLaenge() != MesSatz.LAENGE_DATUM) {
+                throw new IllegalArgumentException("Date field " + name + " must be " + MesSatz.LAENGE_DATUM + " characters wide.");
+            }
+
+            this.names[i] = name;
+            this.offsets[i] = von;
+            this.lengths[i] = feld.getLaenge();
+            this.types[i] = typ;
+            this.defaults[i] = feld.getWert();
+            position = von + feld.getLaenge();
+        }
+
+        this.template = new char[position];
+        for (int i = 0; i < size; i++) {
+            char[] encoded = new char[this.lengths[i]];
+            encodeField(i, this.defaults[i], encoded, -this.offsets[i]);
+            this.encodedDefaults[i] = encoded;
+            System.arraycopy(encoded, 0, this.template, this.offsets[i], encoded.length);
+        }
+    }
+
+    /**
+     * Compiles a field list into a layout.
+     * <p>
+     * The fields must follow each other without gaps or overlaps in list order, starting
+     * at position 1. Field names must be unique and D fields must be 12 characters wide.
+     * The current values of the fields become the defaults of the layout.
+     * </p>
+     *
+     * @param felder The field list, e.g. from {@link MesApi#genSatzAuftrag()}.
+     * @return The compiled layout.
+     * @throws IllegalArgumentException If the field list does not describe a valid layout.
+     */
+    public static MesLayout compile(List<MesSatz> felder) {
+        if (felder == null || felder.isEmpty()) {
+            throw new IllegalArgumentException("A layout needs at least one field.");
+        }
+        return new MesLayout(felder);
+    }
+
+    /**
+     * Maps a field type to the type used for encoding. Unknown types are encoded as C,
+     * like {@link MesSatz#toString()} does.
+     *
+     * @param typ The declared type.
+     * @return 'N', 'D' or 'C'.
+     */
+    private static char normalizeType(char typ) {
+        return (typ == 'N' || typ == 'D') ? typ : 'C';
+    }
+
+    /**
+     * Gets the length of an encoded record without line separator.
+     *
+     * @return The line length in characters.
+     */
+    public int getLineLength() {
+        return this.template.length;
+    }
+
+    /**
+     * Gets the number of fields.
+     *
+     * @return The number of fields.
+     */
+    public int size() {
+        return this.names.length;
+    }
+
+    /**
+     * Looks up the index of a field by name. Callers should resolve indices once and keep them.
+     *
+     * @param name The field name.
+     * @return The field index, or -1 if the layout has no such field.
+     */
+    public int indexOf(String name) {
+        Integer i = this.index.get(name);
+        return i != null ? i : -1;
+    }
+
+    /**
+     * Gets the name of a field.
+     *
+     * @param field The field index.
+     * @return The field name.
+     */
+    public String getName(int field) {
+        return this.names[field];
+    }
+
+    /**
+     * Gets the zero-based position of a field within the line.
+     *
+     * @param field The field index.
+     * @return The offset in characters.
+     */
+    public int getOffset(int field) {
+        return this.offsets[field];
+    }
+
+    /**
+     * Gets the width of a field.
+     *
+     * @param field The field index.
+     * @return The length in characters.
+     */
+    public int getLength(int field) {
+        return this.lengths[field];
+    }
+
+    /**
+     * Gets the encoding type of a field.
+     *
+     * @param field The field index.
+     * @return The type 'N', 'D' or 'C'.
+     */
+    public char getType(int field) {
+        return this.types[field];
+    }
+
+    /**
+     * Gets the default value of a field.
+     *
+     * @param field The field index.
+     * @return The default value, may be null.
+     */
+    public String getDefault(int field) {
+        return this.defaults[field];
+    }
+
+    /**
+     * Creates a new line buffer filled with the default values of all fields.
+     *
+     * @return A line buffer of {@link #getLineLength()} characters.
+     */
+    public char[] newLine() {
+        return this.template.clone();
+    }
+
+    /**
+     * Resets a line buffer to the default values of all fields.
+     *
+     * @param line The line buffer.
+     * @param off  The start of the record in the line buffer.
+     */
+    public void reset(char[] line, int off) {
+        System.arraycopy(this.template, 0, line, off, this.template.length);
+    }
+
+    /**
+     * Encodes a record given as field list into a line buffer.
+     * The list must have been created for this layout, i.e. hold the same fields in the same order.
+     *
+     * @param satz The field list with the values to encode.
+     * @param line The line buffer.
+     * @param off  The start of the record in the line buffer.
+     * @throws IllegalArgumentException If the number of fields does not match the layout.
+     */
+    public void encode(List<MesSatz> satz, char[] line, int off) {
+        if (satz.size() != this.names.length) {
+            throw new IllegalArgumentException("Expected " + this.names.length + " fields but got " + satz.size() + ".");
+        }
+        for (int i = 0; i < this.names.length; i++) {
+            encodeField(i, satz.get(i).getWert(), line, off);
+        }
+    }
+
+    /**
+     * Encodes a record given as values by field index into a line buffer.
+     *
+     * @param werte The values, indexed like the fields of this layout.
+     * @param line  The line buffer.
+     * @param off   The start of the record in the line buffer.
+     * @throws IllegalArgumentException If the number of values does not match the layout.
+     */
+    public void encode(String[] werte, char[] line, int off) {
+        if (werte.length != this.names.length) {
+            throw new IllegalArgumentException("Expected " + this.names.length + " values but got " + werte.length + ".");
+        }
+        for (int i = 0; i < this.names.length; i++) {
+            encodeField(i, werte[i], line, off);
+        }
+    }
+
+    /**
+     * Encodes a single field value into a line buffer.
+     *
+     * @param field The field index.
+     * @param wert  The value; null is encoded like {@link MesSatz#toString()} does.
+     * @param line  The line buffer.
+     * @param off   The start of the record in the line buffer.
+     */
+    public void encodeField(int field, String wert, char[] line, int off) {
+        int pos = off + this.offsets[field];
+        int laenge = this.lengths[field];
+
+        switch (this.types[field]) {
+            case 'N':
+                MesSatz.pad(wert != null ? wert : "0", laenge, '0', line, pos);
+                break;
+
+            case 'D':
+                String standard = this.defaults[field];
+                char[] encoded = this.encodedDefaults[field];
+                if (encoded != null && wert != null && wert.equals(standard)) {
+                    System.arraycopy(encoded, 0, line, pos, laenge);
+                } else {
+                    MesDatum.encode(wert, line, pos);
+                }
+                break;
+
+            default:
+                MesSatz.pad(wert != null ? wert : "", laenge, ' ', line, pos);
+                break;
+        }
+    }
+
+    /**
+     * Encodes a field list into a new string.
+     *
+     * @param satz The field list with the values to encode.
+     * @return The encoded record.
+     */
+    public String toString(List<MesSatz> satz) {
+        char[] line = new char[this.template.length];
+        encode(satz, line, 0);
+        return new String(line);
+    }
+
+}
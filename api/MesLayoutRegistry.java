@@ -0,0 +1,233 @@
+package api;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+
+import util.JsonParser;
+
+/**
+ * A registry of MES layouts (Satzarten) loaded from a schema file.
+ * <p>
+ * The schema is a JSON document listing the fields of every layout:
+ * </p>
+ * <pre>
+ * { "layouts": [
+ *     { "name": "Auftrag", "felder": [
+ *         { "name": "Richtung", "von": 1, "laenge": 1, "typ": "N", "default": "1" },
+ *         { "name": "Satzart",  "von": 2, "laenge": 3, "typ": "N", "default": "100" }
+ *     ] }
+ * ] }
+ * </pre>
+ *
+ * <p>
+ * Fields may be listed in any order; they are sorted by {@code von} and checked for
+ * overlaps and gaps before the layout is compiled into a {@link MesLayout}. Layouts from
+ * the schema use the same compiled form as the layout of {@link MesApi#genSatzAuftrag()},
+ * so {@link MesRecord}, {@link MesWriter} and {@link MesReader} handle them at the same speed.
+ * </p>
+ */
+public class MesLayoutRegistry {
+    private static final String STRING_LAYOUTS = "layouts";
+    private static final String STRING_NAME = "name";
+    private static final String STRING_FELDER = "felder";
+    private static final String STRING_VON = "von";
+    private static final String STRING_LAENGE = "laenge";
+    private static final String STRING_TYP = "typ";
+    private static final String STRING_DEFAULT = "default";
+
+    private final Map<String, MesLayout> layouts = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a registry from a schema file.
+     *
+     * @param schema The schema file.
+     * @return The registry holding all layouts of the file.
+     * @throws IOException    If the file cannot be read.
+     * @throws ParseException If the file is not valid JSON.
+     * @throws IllegalArgumentException If a layout is invalid or a layout or field entry is not an object.
+     */
+    public static MesLayoutRegistry load(Path schema) throws IOException, ParseException {
+        MesLayoutRegistry registry = new MesLayoutRegistry();
+        registry.loadSchema(schema);
+        return registry;
+    }
+
+    /**
+     * Adds all layouts of a schema file. Nothing is added if one of them is invalid.
+     *
+     * @param schema The schema file.
+     * @throws IOException    If the file cannot be read.
+     * @throws ParseException If the file is not valid JSON.
+     * @throws IllegalArgumentException If a layout is invalid or already registered, or a layout or
+     *                                  field entry is not an object.
+     */
+    public void loadSchema(Path schema) throws IOException, ParseException {
+        JSONObject json = JsonParser.toObject(new String(Files.readAllBytes(schema), StandardCharsets.UTF_8));
+        Object list = json.get(STRING_LAYOUTS);
+        if (!(list instanceof JSONArray)) {
+            throw new IllegalArgumentException("The schema " + schema + " has no \"" + STRING_LAYOUTS + "\" array.");
+        }
+
+        Map<String, MesLayout> loaded = new HashMap<>();
+        int index = 1;
+        for (Object entry : (JSONArray) list) {
+            JSONObject layout = toObject(entry, "Entry " + index++ + " of \"" + STRING_LAYOUTS + "\" in " + schema);
+            String name = getString(layout, STRING_NAME, "Layout");
+            if (loaded.containsKey(name)) {
+                throw new IllegalArgumentException("Layout " + name + " is defined more than once.");
+            }
+            loaded.put(name, compile(name, toFelder(name, layout)));
+        }
+
+        // Prüfen und Eintragen in einem Schritt, damit parallele Ladevorgänge sich nicht überschreiben
+        synchronized (this.layouts) {
+            for (String name : loaded.keySet()) {
+                if (this.layouts.containsKey(name)) {
+                    throw new IllegalArgumentException("Layout " + name + " is defined more than once.");
+                }
+            }
+            this.layouts.putAll(loaded);
+        }
+    }
+
+    /**
+     * Registers a layout given as field list, e.g. {@link MesApi#genSatzAuftrag()}.
+     *
+     * @param name   The name of the layout.
+     * @param felder The fields in any order.
+     * @return The compiled layout.
+     * @throws IllegalArgumentException If the layout is invalid or already registered.
+     */
+    public MesLayout register(String name, List<MesSatz> felder) {
+        MesLayout layout = compile(name, new ArrayList<>(felder));
+        synchronized (this.layouts) {
+            if (this.layouts.putIfAbsent(name, layout) != null) {
+                throw new IllegalArgumentException("Layout " + name + " is defined more than once.");
+            }
+        }
+        return layout;
+    }
+
+    /**
+     * Gets a layout by name.
+     *
+     * @param name The name of the layout.
+     * @return The layout.
+     * @throws IllegalArgumentException If no layout has this name.
+     */
+    public MesLayout get(String name) {
+        MesLayout layout = this.layouts.get(name);
+        if (layout == null) {
+            throw new IllegalArgumentException("Layout " + name + " is not registered.");
+        }
+        return layout;
+    }
+
+    /**
+     * Gets the names of all registered layouts.
+     *
+     * @return The layout names.
+     */
+    public Set<String> names() {
+        return Collections.unmodifiableSet(this.layouts.keySet());
+    }
+
+    private static List<MesSatz> toFelder(String layout, JSONObject json) {
+        Object list = json.get(STRING_FELDER);
+        if (!(list instanceof JSONArray) || ((JSONArray) list).isEmpty()) {
+            throw new IllegalArgumentException("Layout " + layout + " has no fields.");
+        }
+
+        List<MesSatz> felder = new ArrayList<>();
+        int index = 1;
+        for (Object entry : (JSONArray) list) {
+            JSONObject feld = toObject(entry, "Layout " + layout + ", entry " + index++ + " of \"" + STRING_FELDER + "\"");
+            String name = getString(feld, STRING_NAME, "Layout " + layout);
+            String context = "Layout " + layout + ", field " + name;
+
+            String typ = getString(feld, STRING_TYP, context);
+            if (!typ.equals("N") && !typ.equals("C") && !typ.equals("D")) {
+                throw new IllegalArgumentException(context + ": unknown type " + typ + ", use N, C or D.");
+            }
+            Object standard = feld.get(STRING_DEFAULT);
+
+            felder.add(new MesSatz(name, getInt(feld, STRING_VON, context), getInt(feld, STRING_LAENGE, context),
+                    typ.charAt(0), standard != null ? standard.toString() : null));
+        }
+        return felder;
+    }
+
+    /**
+     * Sorts the fields by position, checks them for overlaps and gaps and compiles them.
+     */
+    private static MesLayout compile(String name, List<MesSatz> felder) {
+        for (MesSatz feld : felder) {
+            if (feld.getVon() == null || feld.getLaenge() == null) {
+                throw new IllegalArgumentException("Layout " + name + ": field " + feld.getName() + " needs a position and a length.");
+            }
+        }
+        felder.sort(Comparator.comparing(MesSatz::getVon));
+
+        int end = 1;
+        for (MesSatz feld : felder) {
+            if (feld.getVon() < end) {
+                throw new IllegalArgumentException("Layout " + name + ": field " + feld.getName() + " at " + feld.getVon()
+                        + " overlaps the previous field, which ends at " + (end - 1) + ".");
+            }
+            if (feld.getVon() > end) {
+                throw new IllegalArgumentException("Layout " + name + ": gap from " + end + " to " + (feld.getVon() - 1)
+                        + " before field " + feld.getName() + ".");
+            }
+            end = feld.getVon() + feld.getLaenge();
+        }
+
+        try {
+            return MesLayout.compile(felder);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Layout " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Checks that an entry of a list is an object.
+     *
+     * @param context The entry for the message, counted from 1.
+     */
+    private static JSONObject toObject(Object entry, String context) {
+        if (!(entry instanceof JSONObject)) {
+            throw new IllegalArgumentException(context + " is not an object: " + entry);
+        }
+        return (JSONObject) entry;
+    }
+
+    private static String getString(JSONObject json, String key, String context) {
+        Object value = json.get(key);
+        if (!(value instanceof String)) {
+            throw new IllegalArgumentException(context + ": \"" + key + "\" must be a string.");
+        }
+        return (String) value;
+    }
+
+    private static int getInt(JSONObject json, String key, String context) {
+        Object value = json.get(key);
+        if (!(value instanceof Long) || (Long) value < 1 || (Long) value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(context + ": \"" + key + "\" must be a positive number.");
+        }
+        return ((Long) value).intValue();
+    }
+
+}
@@ -0,0 +1,490 @@
+package api;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * A durable, disk-backed outbox for MES orders.
+ * <p>
+ * Rendered orders are appended to a log of memory-mapped segment files in a directory.
+ * Every entry is stored as length, CRC32 and UTF-8 body, and is addressed by its byte
+ * offset in the log. Appending only copies the body into the mapping, so bursts of
+ * orders are taken at memory speed; a flusher thread forces the mapping to disk in
+ * batches, and {@link #sync()} lets a caller wait until its entries are durable.
+ * </p>
+ *
+ * <p>
+ * A sender thread drains the log in order through a {@link Sender}, for example
+ * {@link MesTransport}. After each successful send the offset of the next entry is
+ * stored as acknowledged, and segments that are fully acknowledged are deleted. Failed
+ * sends are retried with backoff, independent of the appending side. After a restart
+ * the log is recovered up to the last intact entry and sending resumes at the last
+ * acknowledged offset, so every order is delivered at least once.
+ * </p>
+ *
+ * <p>
+ * The outbox is thread-safe.
+ * </p>
+ */
+public class MesOutbox implements Closeable {
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String ACK_FILE = "ack";
+    private static final int HEADER = 8;
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final long DEFAULT_SYNC_MILLIS = 50;
+    private static final long MIN_BACKOFF_MILLIS = 200;
+    private static final long MAX_BACKOFF_MILLIS = 30000;
+
+    /**
+     * Sends one order body. Throwing any exception means the order was not delivered
+     * and will be sent again.
+     */
+    @FunctionalInterface
+    public interface Sender {
+        void sende(String body) throws Exception;
+    }
+
+    private final Path directory;
+    private final Sender sender;
+    private final int segmentSize;
+    private final long syncMillis;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final FileChannel ackChannel;
+    private final ByteBuffer ackBuffer = ByteBuffer.allocate(Long.BYTES);
+    private final Object syncLock = new Object();
+    private final Object signal = new Object();
+    private final Object closeSignal = new Object();
+    private final Thread flusher;
+    private final Thread drainer;
+
+    private volatile Segment current;
+    private volatile long written;
+    private volatile long synced;
+    private volatile long acknowledged;
+    private volatile boolean ackDirty;
+    private volatile boolean closed;
+
+    /**
+     * Opens an outbox with 64 MiB segments and a sync interval of 50 ms.
+     *
+     * @param directory The directory of the log; it is created if missing.
+     * @param sender    The sender used to drain the log.
+     * @throws IOException If the log cannot be opened or recovered.
+     */
+    public MesOutbox(Path directory, Sender sender) throws IOException {
+        this(directory, sender, DEFAULT_SEGMENT_SIZE, DEFAULT_SYNC_MILLIS);
+    }
+
+    /**
+     * Opens an outbox that sends through a {@link MesTransport}.
+     *
+     * @param directory The directory of the log; it is created if missing.
+     * @param transport The transport used to drain the log.
+     * @throws IOException If the log cannot be opened or recovered.
+     */
+    public MesOutbox(Path directory, MesTransport transport) throws IOException {
+        this(directory, body -> transport.submit(body).get());
+    }
+
+    /**
+     * Opens an outbox.
+     *
+     * @param directory   The directory of the log; it is created if missing.
+     * @param sender      The sender used to drain the log.
+     * @param segmentSize The size of a segment file in bytes; it limits the size of an order.
+     * @param syncMillis  The interval in which appended entries are forced to disk.
+     * @throws IOException If the log cannot be opened or recovered.
+     */
+    public MesOutbox(Path directory, Sender sender, int segmentSize, long syncMillis) throws IOException {
+        if (directory == null || sender == null) {
+            throw new NullPointerException("Directory and sender cannot be null.");
+        }
+        if (segmentSize <= HEADER || syncMillis <= 0) {
+            throw new IllegalArgumentException("segmentSize and syncMillis must be positive.");
+        }
+        this.directory = directory;
+        this.sender = sender;
+        this.segmentSize = segmentSize;
+        this.syncMillis = syncMillis;
+
+        Files.createDirectories(directory);
+        this.ackChannel = FileChannel.open(directory.resolve(ACK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        recover();
+
+        this.flusher = new Thread(this::runFlusher, "mes-outbox-sync");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+        this.drainer = new Thread(this::runSender, "mes-outbox-send");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    /**
+     * Appends an order to the log. The entry is durable after the next sync.
+     *
+     * @param body The rendered records of the order.
+     * @return The offset of the entry.
+     * @throws IOException If the outbox is closed or a new segment cannot be created.
+     * @throws IllegalArgumentException If the order does not fit into a segment.
+     */
+    public long append(String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        if (HEADER + bytes.length > this.segmentSize) {
+            throw new IllegalArgumentException("The order of " + bytes.length + " bytes does not fit into a segment.");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+
+        long offset;
+        synchronized (this) {
+            if (this.closed) {
+                throw new IOException("The outbox is closed.");
+            }
+            if (this.current.end + HEADER + bytes.length > this.segmentSize) {
+                this.current = createSegment(this.current.base + this.current.end);
+            }
+            Segment segment = this.current;
+            offset = segment.base + segment.end;
+
+            MappedByteBuffer buffer = segment.buffer;
+            buffer.position(segment.end);
+            buffer.putInt(bytes.length);
+            buffer.putInt((int) crc.getValue());
+            buffer.put(bytes);
+            segment.end = buffer.position();
+            this.written = segment.base + segment.end;
+        }
+
+        synchronized (this.signal) {
+            this.signal.notifyAll();
+        }
+        return offset;
+    }
+
+    /**
+     * Appends an order and waits until it is durable.
+     *
+     * @param body The rendered records of the order.
+     * @return The offset of the entry.
+     * @throws IOException If the entry cannot be written or forced to disk.
+     */
+    public long appendDurable(String body) throws IOException {
+        long offset = append(body);
+        sync();
+        return offset;
+    }
+
+    /**
+     * Forces all appended entries to disk. Concurrent calls share one force.
+     *
+     * @throws IOException If the log cannot be forced.
+     */
+    public void sync() throws IOException {
+        long target = this.written;
+        if (this.synced >= target) {
+            return;
+        }
+        synchronized (this.syncLock) {
+            if (this.synced >= target) {
+                return;
+            }
+            long upTo = this.written;
+            Long from = this.segments.floorKey(this.synced);
+            for (Segment segment : this.segments.tailMap(from != null ? from : 0L, true).values()) {
+                segment.buffer.force();
+            }
+            this.synced = upTo;
+        }
+    }
+
+    /**
+     * Gets the offset up to which orders have been appended.
+     *
+     * @return The end of the log.
+     */
+    public long getWritten() {
+        return this.written;
+    }
+
+    /**
+     * Gets the offset up to which orders have been sent successfully.
+     *
+     * @return The acknowledged offset.
+     */
+    public long getAcknowledged() {
+        return this.acknowledged;
+    }
+
+    /**
+     * Checks whether all appended orders have been sent.
+     *
+     * @return true if nothing is pending.
+     */
+    public boolean isDrained() {
+        return this.acknowledged >= this.written;
+    }
+
+    /**
+     * Stops the sender, forces the log and the acknowledged offset to disk and closes all files.
+     * An order that is being sent is waited for up to 30 seconds; orders that were not sent
+     * stay in the log for the next start.
+     *
+     * @throws IOException If the log cannot be forced or closed.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+        }
+        // Nicht unterbrechen: ein Interrupt während FileChannel-I/O schließt ackChannel
+        synchronized (this.signal) {
+            this.signal.notifyAll();
+        }
+        synchronized (this.closeSignal) {
+            this.closeSignal.notifyAll();
+        }
+        try {
+            this.drainer.join(TimeUnit.SECONDS.toMillis(30));
+            this.flusher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            sync();
+            syncAck();
+        } finally {
+            for (Segment segment : this.segments.values()) {
+                segment.channel.close();
+            }
+            this.ackChannel.close();
+        }
+    }
+
+    private void recover() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long base = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                this.segments.put(base, openSegment(file, base));
+            }
+        }
+
+        if (this.segments.isEmpty()) {
+            this.current = createSegment(0);
+        } else {
+            for (Segment segment : this.segments.values()) {
+                segment.end = scan(segment);
+            }
+            this.current = this.segments.lastEntry().getValue();
+        }
+        this.written = this.current.base + this.current.end;
+        this.synced = this.written;
+
+        long ack = 0;
+        if (this.ackChannel.size() >= Long.BYTES) {
+            this.ackBuffer.clear();
+            this.ackChannel.read(this.ackBuffer, 0);
+            ack = this.ackBuffer.getLong(0);
+        }
+        this.acknowledged = Math.min(Math.max(ack, this.segments.firstKey()), this.written);
+    }
+
+    /**
+     * Finds the end of the intact entries of a segment. A torn entry after a crash is
+     * cleared so that it cannot be mistaken for data later.
+     */
+    private int scan(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = 0;
+        CRC32 crc = new CRC32();
+
+        while (position + HEADER <= this.segmentSize) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER + length > this.segmentSize) {
+                break;
+            }
+            ByteBuffer body = buffer.duplicate();
+            body.position(position + HEADER).limit(position + HEADER + length);
+            crc.reset();
+            crc.update(body);
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                int clear = Math.min(this.segmentSize, position + HEADER + length);
+                for (int p = position; p < clear; p++) {
+                    buffer.put(p, (byte) 0);
+                }
+                break;
+            }
+            position += HEADER + length;
+        }
+        return position;
+    }
+
+    private Segment createSegment(long base) throws IOException {
+        Path file = this.directory.resolve(String.format("%020d", base) + SEGMENT_SUFFIX);
+        Segment segment = openSegment(file, base);
+        this.segments.put(base, segment);
+        return segment;
+    }
+
+    private Segment openSegment(Path file, long base) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, this.segmentSize);
+        return new Segment(file, base, channel, buffer);
+    }
+
+    private void runFlusher() {
+        while (!this.closed) {
+            try {
+                if (!pause(this.closeSignal, this.syncMillis)) {
+                    return;
+                }
+                sync();
+                syncAck();
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                System.out.println("MES Outbox: " + e.getMessage());
+            }
+        }
+    }
+
+    private void runSender() {
+        long backoff = MIN_BACKOFF_MILLIS;
+        while (!this.closed) {
+            try {
+                long offset = this.acknowledged;
+                if (offset >= this.written) {
+                    synchronized (this.signal) {
+                        while (!this.closed && this.acknowledged >= this.written) {
+                            this.signal.wait();
+                        }
+                    }
+                    continue;
+                }
+
+                Map.Entry<Long, Segment> entry = this.segments.floorEntry(offset);
+                Segment segment = entry.getValue();
+                int position = (int) (offset - segment.base);
+                if (position >= segment.end) {
+                    // Rest eines abgeschlossenen Segments überspringen
+                    Long next = this.segments.higherKey(segment.base);
+                    if (next != null) {
+                        acknowledge(next);
+                    }
+                    continue;
+                }
+
+                ByteBuffer buffer = segment.reader();
+                int length = buffer.getInt(position);
+                byte[] bytes = new byte[length];
+                buffer.position(position + HEADER);
+                buffer.get(bytes);
+
+                try {
+                    this.sender.sende(new String(bytes, StandardCharsets.UTF_8));
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Exception e) {
+                    System.out.println("MES Outbox: " + e.getMessage());
+                    pause(this.closeSignal, backoff);
+                    backoff = Math.min(MAX_BACKOFF_MILLIS, backoff * 2);
+                    continue;
+                }
+
+                backoff = MIN_BACKOFF_MILLIS;
+                acknowledge(offset + HEADER + length);
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                System.out.println("MES Outbox: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Waits the given time on a monitor, or until the outbox is closed.
+     *
+     * @return false if the outbox was closed.
+     */
+    private boolean pause(Object monitor, long millis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        synchronized (monitor) {
+            long remaining = millis;
+            while (!this.closed && remaining > 0) {
+                monitor.wait(remaining);
+                remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            }
+        }
+        return !this.closed;
+    }
+
+    private void acknowledge(long offset) throws IOException {
+        this.acknowledged = offset;
+        this.ackBuffer.clear();
+        this.ackBuffer.putLong(0, offset);
+        this.ackChannel.write(this.ackBuffer, 0);
+        this.ackDirty = true;
+
+        // Vollständig bestätigte, abgeschlossene Segmente löschen
+        Map.Entry<Long, Segment> first = this.segments.firstEntry();
+        while (first.getValue() != this.current) {
+            Long next = this.segments.higherKey(first.getKey());
+            if (next == null || next > offset) {
+                break;
+            }
+            this.segments.remove(first.getKey());
+            first.getValue().channel.close();
+            Files.deleteIfExists(first.getValue().file);
+            first = this.segments.firstEntry();
+        }
+    }
+
+    private void syncAck() throws IOException {
+        if (this.ackDirty) {
+            this.ackDirty = false;
+            this.ackChannel.force(false);
+        }
+    }
+
+    private static final class Segment {
+        private final Path file;
+        private final long base;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private ByteBuffer reader;
+        private volatile int end;
+
+        private Segment(Path file, long base, FileChannel channel, MappedByteBuffer buffer) {
+            this.file = file;
+            this.base = base;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        // Eigene Sicht für den Sender, die Position des Schreibpuffers bleibt unberührt
+        private ByteBuffer reader() {
+            if (this.reader == null) {
+                this.reader = this.buffer.duplicate();
+            }
+            return this.reader;
+        }
+    }
+
+}
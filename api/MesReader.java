@@ -0,0 +1,125 @@
+package api;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads fixed-width MES records from a memory-mapped file.
+ * <p>
+ * The file is mapped read-only and never copied onto the heap. Records are accessed
+ * through {@link MesRecordView} flyweights, which read fields in place by the offsets of
+ * a {@link MesLayout}. The line separator (none, "\n" or "\r\n") is detected from the
+ * first record; the last record may lack it. Bytes are read as ISO-8859-1, matching
+ * {@link MesWriter}.
+ * </p>
+ *
+ * <p>
+ * The reader is immutable and may be shared between threads, each with its own view.
+ * The mapping is released when the reader is garbage collected.
+ * </p>
+ */
+public final class MesReader {
+    private final MesLayout layout;
+    private final MappedByteBuffer[] chunks;
+    private final int stride;
+    private final long recordsPerChunk;
+    private final long count;
+
+    private MesReader(MesLayout layout, MappedByteBuffer[] chunks, int stride, long recordsPerChunk, long count) {
+        this.layout = layout;
+        this.chunks = chunks;
+        this.stride = stride;
+        this.recordsPerChunk = recordsPerChunk;
+        this.count = count;
+    }
+
+    /**
+     * Maps a file of MES records.
+     *
+     * @param file   The file to read.
+     * @param layout The layout of the records.
+     * @return The reader.
+     * @throws IOException If the file cannot be mapped or its size does not fit the layout.
+     */
+    public static MesReader open(Path file, MesLayout layout) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int lineLength = layout.getLineLength();
+            int separator = detectSeparator(channel, lineLength, size);
+            int stride = lineLength + separator;
+
+            long count = size / stride;
+            long rest = size % stride;
+            if (rest == lineLength) {
+                count++;
+            } else if (rest != 0) {
+                throw new IOException("File size " + size + " is not a multiple of the record length " + stride + ".");
+            }
+
+            // Jede Abbildung fasst nur ganze Sätze und bleibt unter 2 GB
+            long recordsPerChunk = Math.max(1, Integer.MAX_VALUE / stride);
+            int chunkCount = (int) ((count + recordsPerChunk - 1) / recordsPerChunk);
+            MappedByteBuffer[] chunks = new MappedByteBuffer[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                long start = i * recordsPerChunk * stride;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(recordsPerChunk * stride, size - start));
+            }
+
+            return new MesReader(layout, chunks, stride, recordsPerChunk, count);
+        }
+    }
+
+    private static int detectSeparator(FileChannel channel, int lineLength, long size) throws IOException {
+        if (size <= lineLength) {
+            return 0;
+        }
+        MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, lineLength, Math.min(2, size - lineLength));
+        if (head.get(0) == '\n') {
+            return 1;
+        }
+        if (head.get(0) == '\r' && head.limit() > 1 && head.get(1) == '\n') {
+            return 2;
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the layout of the records.
+     *
+     * @return The layout.
+     */
+    public MesLayout getLayout() {
+        return this.layout;
+    }
+
+    /**
+     * Gets the number of records in the file.
+     *
+     * @return The number of records.
+     */
+    public long size() {
+        return this.count;
+    }
+
+    /**
+     * Creates a view positioned before the first record. Call {@link MesRecordView#next()}
+     * to move to the first record.
+     *
+     * @return A new view.
+     */
+    public MesRecordView view() {
+        return new MesRecordView(this);
+    }
+
+    MappedByteBuffer chunk(long index) {
+        return this.chunks[(int) (index / this.recordsPerChunk)];
+    }
+
+    int position(long index) {
+        return (int) ((index % this.recordsPerChunk) * this.stride);
+    }
+
+}
@@ -0,0 +1,180 @@
+package api;
+
+import java.time.LocalDateTime;
+
+/**
+ * A mutable MES record backed by its encoded line.
+ * <p>
+ * Unlike a {@code List<MesSatz>}, the record keeps no per-field objects. Each setter
+ * encodes its value straight into the line buffer at the offset of the field, so filling
+ * a field costs a constant lookup plus the characters written, and rendering the record
+ * costs nothing at all. Field indices are resolved once with {@link MesLayout#indexOf(String)}
+ * (see the {@code FELD_} constants in {@link MesApi}).
+ * </p>
+ *
+ * <p>
+ * A record is reused across many orders by calling {@link #reset()}, which restores the
+ * default values of the layout. Records are not thread-safe.
+ * </p>
+ */
+public final class MesRecord {
+    private final MesLayout layout;
+    private final char[] line;
+
+    /**
+     * Creates a record holding the default values of a layout.
+     *
+     * @param layout The layout of the record.
+     */
+    public MesRecord(MesLayout layout) {
+        this.layout = layout;
+        this.line = layout.newLine();
+    }
+
+    /**
+     * Gets the layout of the record.
+     *
+     * @return The layout.
+     */
+    public MesLayout getLayout() {
+        return this.layout;
+    }
+
+    /**
+     * Restores the default values of all fields.
+     *
+     * @return This record.
+     */
+    public MesRecord reset() {
+        this.layout.reset(this.line, 0);
+        return this;
+    }
+
+    /**
+     * Sets a field from a string, encoded by the type of the field like {@link MesSatz#toString()}.
+     *
+     * @param field The field index.
+     * @param wert  The value.
+     * @return This record.
+     */
+    public MesRecord set(int field, String wert) {
+        this.layout.encodeField(field, wert, this.line, 0);
+        return this;
+    }
+
+    /**
+     * Sets a numeric value. N fields are padded with zeros, C fields with spaces; values
+     * wider than the field keep their rightmost digits, as with {@link #set(int, String)}.
+     *
+     * @param field The field index.
+     * @param wert  The value.
+     * @return This record.
+     * @throws IllegalArgumentException If the field is a D field.
+     */
+    public MesRecord setLong(int field, long wert) {
+        char typ = this.layout.getType(field);
+        if (typ == 'D') {
+            throw new IllegalArgumentException("Field " + this.layout.getName(field) + " is a date field.");
+        }
+
+        int start = this.layout.getOffset(field);
+        int pos = start + this.layout.getLength(field);
+
+        // Ziffern von rechts schreiben; negativ rechnen, damit auch Long.MIN_VALUE passt
+        long rest = wert < 0 ? wert : -wert;
+        do {
+            this.line[--pos] = (char) ('0' - rest % 10);
+            rest /= 10;
+        } while (rest != 0 && pos > start);
+
+        if (wert < 0 && pos > start) {
+            this.line[--pos] = '-';
+        }
+        char fill = typ == 'N' ? '0' : ' ';
+        while (pos > start) {
+            this.line[--pos] = fill;
+        }
+        return this;
+    }
+
+    /**
+     * Sets a D field from a date and time, written as yyMMddHHmmss.
+     *
+     * @param field The field index.
+     * @param wert  The date and time.
+     * @return This record.
+     * @throws IllegalArgumentException If the field is not a D field.
+     */
+    public MesRecord setDateTime(int field, LocalDateTime wert) {
+        checkDate(field);
+        MesDatum.format(wert.getYear(), wert.getMonthValue(), wert.getDayOfMonth(),
+                wert.getHour(), wert.getMinute(), wert.getSecond(), this.line, this.layout.getOffset(field));
+        return this;
+    }
+
+    /**
+     * Sets a D field from epoch seconds, counted in local time like
+     * {@code LocalDateTime.toEpochSecond(ZoneOffset.UTC)}.
+     *
+     * @param field       The field index.
+     * @param epochSecond The seconds since 1970-01-01T00:00:00.
+     * @return This record.
+     * @throws IllegalArgumentException If the field is not a D field.
+     */
+    public MesRecord setEpochSecond(int field, long epochSecond) {
+        checkDate(field);
+        MesDatum.formatEpochSecond(epochSecond, this.line, this.layout.getOffset(field));
+        return this;
+    }
+
+    /**
+     * Sets a D field from a value in the format "dd.MM.yyyy HH:mm:ss". Unlike
+     * {@link #set(int, String)}, an invalid value is reported to the caller; the field
+     * then holds {@link MesSatz#DATUM_FALLBACK} as before.
+     *
+     * @param field The field index.
+     * @param wert  The date value; null is invalid.
+     * @return true if the value was valid, false if the fallback was written.
+     * @throws IllegalArgumentException If the field is not a D field.
+     */
+    public boolean setDatum(int field, String wert) {
+        checkDate(field);
+        return MesDatum.encode(wert, this.line, this.layout.getOffset(field));
+    }
+
+    private void checkDate(int field) {
+        if (this.layout.getType(field) != 'D') {
+            throw new IllegalArgumentException("Field " + this.layout.getName(field) + " is not a date field.");
+        }
+    }
+
+    /**
+     * Gives access to the encoded line, e.g. for {@link MesWriter}.
+     *
+     * @return The line buffer of this record.
+     */
+    char[] line() {
+        return this.line;
+    }
+
+    /**
+     * Appends the encoded record to a builder.
+     *
+     * @param builder The builder.
+     * @return The builder.
+     */
+    public StringBuilder appendTo(StringBuilder builder) {
+        return builder.append(this.line);
+    }
+
+    /**
+     * Returns the encoded record.
+     *
+     * @return The record as fixed-width line.
+     */
+    @Override
+    public String toString() {
+        return new String(this.line);
+    }
+
+}
@@ -0,0 +1,273 @@
+package api;
+
+import java.nio.MappedByteBuffer;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+
+/**
+ * A flyweight view of one record of a {@link MesReader}.
+ * <p>
+ * The view holds no copy of the record. Field accessors read the mapped bytes at the
+ * field offsets of the layout; N and D fields are parsed to primitives on demand. A view
+ * is moved from record to record with {@link #next()} or {@link #moveTo(long)}, so one
+ * instance serves a whole file. Views are not thread-safe.
+ * </p>
+ */
+public final class MesRecordView {
+    private final MesReader reader;
+    private final MesLayout layout;
+    private MappedByteBuffer buffer;
+    private int base;
+    private long index;
+
+    MesRecordView(MesReader reader) {
+        this.reader = reader;
+        this.layout = reader.getLayout();
+        this.index = -1;
+    }
+
+    /**
+     * Gets the layout of the record.
+     *
+     * @return The layout.
+     */
+    public MesLayout getLayout() {
+        return this.layout;
+    }
+
+    /**
+     * Gets the index of the current record.
+     *
+     * @return The record index, or -1 before the first call to {@link #next()}.
+     */
+    public long getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Moves to the next record.
+     *
+     * @return true if the view is on a record, false if the end of the file is reached.
+     */
+    public boolean next() {
+        if (this.index + 1 >= this.reader.size()) {
+            return false;
+        }
+        moveTo(this.index + 1);
+        return true;
+    }
+
+    /**
+     * Moves to a record.
+     *
+     * @param index The record index.
+     * @return This view.
+     * @throws IndexOutOfBoundsException If the index is outside the file.
+     */
+    public MesRecordView moveTo(long index) {
+        if (index < 0 || index >= this.reader.size()) {
+            throw new IndexOutOfBoundsException("Record " + index + " is outside 0.." + (this.reader.size() - 1) + ".");
+        }
+        this.buffer = this.reader.chunk(index);
+        this.base = this.reader.position(index);
+        this.index = index;
+        return this;
+    }
+
+    /**
+     * Gets one character of a field.
+     *
+     * @param field The field index.
+     * @param i     The position within the field.
+     * @return The character.
+     */
+    public char charAt(int field, int i) {
+        return (char) (this.buffer.get(this.base + this.layout.getOffset(field) + i) & 0xFF);
+    }
+
+    /**
+     * Checks whether a field contains only spaces.
+     *
+     * @param field The field index.
+     * @return true if the field is blank.
+     */
+    public boolean isBlank(int field) {
+        int start = this.base + this.layout.getOffset(field);
+        int end = start + this.layout.getLength(field);
+        for (int p = start; p < end; p++) {
+            if (this.buffer.get(p) != ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies the raw characters of a field, including padding.
+     *
+     * @param field The field index.
+     * @param dst   The target buffer.
+     * @param off   The start in the target buffer.
+     * @return The number of characters copied.
+     */
+    public int getChars(int field, char[] dst, int off) {
+        int start = this.base + this.layout.getOffset(field);
+        int len = this.layout.getLength(field);
+        for (int i = 0; i < len; i++) {
+            dst[off + i] = (char) (this.buffer.get(start + i) & 0xFF);
+        }
+        return len;
+    }
+
+    /**
+     * Compares the value of a field with a string, ignoring the padding of C fields.
+     * Nothing is allocated.
+     *
+     * @param field The field index.
+     * @param wert  The value to compare with.
+     * @return true if the field holds the value.
+     */
+    public boolean contentEquals(int field, CharSequence wert) {
+        int start = valueStart(field);
+        int end = this.base + this.layout.getOffset(field) + this.layout.getLength(field);
+        if (end - start != wert.length()) {
+            return false;
+        }
+        for (int p = start, i = 0; p < end; p++, i++) {
+            if ((char) (this.buffer.get(p) & 0xFF) != wert.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the value of a field as string. For C fields the leading padding is removed,
+     * other fields are returned as stored. This allocates a new string.
+     *
+     * @param field The field index.
+     * @return The value.
+     */
+    public String getString(int field) {
+        int start = valueStart(field);
+        int end = this.base + this.layout.getOffset(field) + this.layout.getLength(field);
+        char[] chars = new char[end - start];
+        for (int p = start, i = 0; p < end; p++, i++) {
+            chars[i] = (char) (this.buffer.get(p) & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Parses an N field. Leading zeros and spaces are skipped, a minus sign is allowed.
+     *
+     * @param field The field index.
+     * @return The number.
+     * @throws NumberFormatException If the field does not hold a number.
+     */
+    public long getLong(int field) {
+        int p = this.base + this.layout.getOffset(field);
+        int end = p + this.layout.getLength(field);
+
+        while (p < end && (this.buffer.get(p) == ' ' || this.buffer.get(p) == '0')) {
+            p++;
+        }
+        boolean negative = p < end && this.buffer.get(p) == '-';
+        if (negative) {
+            p++;
+        }
+
+        long result = 0;
+        for (; p < end; p++) {
+            int digit = this.buffer.get(p) - '0';
+            if (digit < 0 || digit > 9 || result > (Long.MAX_VALUE - digit) / 10) {
+                throw new NumberFormatException("Field " + this.layout.getName(field) + " of record " + this.index + " is not a number.");
+            }
+            result = result * 10 + digit;
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Parses a D field (yyMMddHHmmss) to seconds since 1970-01-01T00:00:00 in local time.
+     * Two-digit years 70 to 99 are read as 1970 to 1999, 00 to 69 as 2000 to 2069.
+     *
+     * @param field The field index.
+     * @return The epoch seconds.
+     * @throws DateTimeException If the field does not hold a valid date.
+     */
+    public long getEpochSecond(int field) {
+        int p = this.base + this.layout.getOffset(field);
+        int year = MesDatum.expandYear(digits2(field, p));
+        int month = digits2(field, p + 2);
+        int day = digits2(field, p + 4);
+        int hour = digits2(field, p + 6);
+        int minute = digits2(field, p + 8);
+        int second = digits2(field, p + 10);
+
+        if (!MesDatum.isValid(year, month, day, hour, minute, second)) {
+            throw invalidDate(field);
+        }
+        return MesDatum.toEpochSecond(year, month, day, hour, minute, second);
+    }
+
+    /**
+     * Parses a D field (yyMMddHHmmss) to a date and time. Two-digit years are expanded
+     * like in {@link #getEpochSecond(int)}.
+     *
+     * @param field The field index.
+     * @return The date and time.
+     * @throws DateTimeException If the field does not hold a valid date.
+     */
+    public LocalDateTime getDateTime(int field) {
+        int p = this.base + this.layout.getOffset(field);
+        try {
+            return LocalDateTime.of(MesDatum.expandYear(digits2(field, p)), digits2(field, p + 2), digits2(field, p + 4),
+                    digits2(field, p + 6), digits2(field, p + 8), digits2(field, p + 10));
+        } catch (DateTimeException e) {
+            throw invalidDate(field);
+        }
+    }
+
+    private int digits2(int field, int p) {
+        int d1 = this.buffer.get(p) - '0';
+        int d2 = this.buffer.get(p + 1) - '0';
+        if (d1 < 0 || d1 > 9 || d2 < 0 || d2 > 9) {
+            throw invalidDate(field);
+        }
+        return d1 * 10 + d2;
+    }
+
+    private DateTimeException invalidDate(int field) {
+        return new DateTimeException("Field " + this.layout.getName(field) + " of record " + this.index + " is not a valid date.");
+    }
+
+    private int valueStart(int field) {
+        int p = this.base + this.layout.getOffset(field);
+        if (this.layout.getType(field) == 'C') {
+            int end = p + this.layout.getLength(field);
+            while (p < end && this.buffer.get(p) == ' ') {
+                p++;
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Returns the current record as stored, without line separator.
+     *
+     * @return The record.
+     */
+    @Override
+    public String toString() {
+        if (this.buffer == null) {
+            return "";
+        }
+        char[] line = new char[this.layout.getLineLength()];
+        for (int i = 0; i < line.length; i++) {
+            line[i] = (char) (this.buffer.get(this.base + i) & 0xFF);
+        }
+        return new String(line);
+    }
+
+}
@@ -11,6 +11,13 @@ public class MesSatz {
     private char typ;       // Typ: N, C, D
     private String wert;    // Wert
 
+    // Länge eines D-Feldes im Format yyMMddHHmmss
+    static final int LAENGE_DATUM = 12;
+
+    // Ersatzwert für ungültige Daten; weicht bewusst nicht vom bisherigen Verhalten ab,
+    // obwohl genSatzAuftrag() 01.01.1980 als Standard verwendet
+    static final String DATUM_FALLBACK = "01.01.1970 00:00:00";
+
     // Formatter für das Datum
     private static final DateTimeFormatter DATE_FORMAT_IN = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss");
     private static final DateTimeFormatter DATE_FORMAT_OUT = DateTimeFormatter.ofPattern("yyMMddHHmmss");
@@ -69,18 +76,10 @@ public class MesSatz {
         if (getWert() == null) {
             setWert("");
         }
-    
-        // Initialisiere einen String mit der gewünschten Länge an Leerzeichen
-        StringBuilder stringBuilder = new StringBuilder();
-        for (int i = 0; i < getLaenge(); i++) {
-            stringBuilder.append(' '); // Füge Leerzeichen hinzu
-        }
-    
-        // Hänge den Wert an den String an
-        stringBuilder.append(getWert());
-    
-        // Schneide den String von rechts ab, um die definierte Länge zu erreichen  
-        return stringBuilder.toString().substring(stringBuilder.length() - getLaenge());
+
+        char[] feld = new char[getLaenge()];
+        pad(getWert(), getLaenge(), ' ', feld, 0);
+        return new String(feld);
     }
 
     private String typeN() {
@@ -88,29 +87,77 @@ public class MesSatz {
             setWert("0");
         }
 
-        // Initialisiere einen String mit der gewünschten Länge an Leerzeichen
-        StringBuilder stringBuilder = new StringBuilder();
-        for (int i = 0; i < getLaenge(); i++) {
-            stringBuilder.append('0'); // Füge 0 hinzu
-        }
+        char[] feld = new char[getLaenge()];
+        pad(getWert(), getLaenge(), '0', feld, 0);
+        return new String(feld);
+    }
 
-        // Hänge den Wert an den String an
-        stringBuilder.append(getWert());
+    private String typeD() {
+        return formatDatum(wert);
+    }
+
+    /**
+     * Writes a value right-aligned into a fixed-width field.
+     * <p>
+     * The field is filled with {@code fill} on the left; values longer than the field
+     * keep their rightmost characters. This is the padding rule of the C and N types.
+     * </p>
+     *
+     * @param wert   The value to write.
+     * @param laenge The width of the field.
+     * @param fill   The padding character (' ' for C, '0' for N).
+     * @param dst    The line buffer.
+     * @param off    The position of the field in the line buffer.
+     */
+    static void pad(CharSequence wert, int laenge, char fill, char[] dst, int off) {
+        int len = wert.length();
+        int start = len > laenge ? len - laenge : 0;
+        int pos = off + laenge;
+
+        // Von rechts nach links schreiben, Rest mit Füllzeichen auffüllen
+        for (int i = len - 1; i >= start; i--) {
+            dst[--pos] = wert.charAt(i);
+        }
+        while (pos > off) {
+            dst[--pos] = fill;
+        }
+    }
 
-        // Schneide den String von rechts ab, um die definierte Länge zu erreichen  
-        return stringBuilder.toString().substring(stringBuilder.length() - getLaenge());
+    /**
+     * Converts a date value from "dd.MM.yyyy HH:mm:ss" to the MES format yyMMddHHmmss.
+     * Invalid dates, including null, are replaced by {@link #DATUM_FALLBACK}.
+     *
+     * @param wert The date value.
+     * @return The date in the format yyMMddHHmmss.
+     */
+    static String formatDatum(String wert) {
+        char[] feld = new char[LAENGE_DATUM];
+        MesDatum.encode(wert, feld, 0);
+        return new String(feld);
     }
 
-    private String typeD() {
+    /**
+     * Converts a date value with the formatter. Only used for values that do not fit the
+     * allocation-free parser of {@link MesDatum}, i.e. years with more than four digits.
+     *
+     * @param wert The date value.
+     * @param dst  The line buffer.
+     * @param off  The position of the field in the line buffer.
+     * @return true if the value was valid, false if the fallback was written.
+     */
+    static boolean parseDatum(String wert, char[] dst, int off) {
         LocalDateTime dateTime;
+        boolean valid = true;
         try {
             dateTime = LocalDateTime.parse(wert, DATE_FORMAT_IN);
         } catch (DateTimeParseException e) {
             // Bei ungültigem Datum auf Standardwert setzen
-            dateTime = LocalDateTime.parse("01.01.1970 00:00:00", DATE_FORMAT_IN);
+            dateTime = LocalDateTime.parse(DATUM_FALLBACK, DATE_FORMAT_IN);
+            valid = false;
         }
 
-        return dateTime.format(DATE_FORMAT_OUT);
+        dateTime.format(DATE_FORMAT_OUT).getChars(0, LAENGE_DATUM, dst, off);
+        return valid;
     }
 
     @Override
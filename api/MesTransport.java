@@ -0,0 +1,220 @@
+package api;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.ehg.abas.projekt.mes.api.ImportAuftragsdatenApi;
+import com.ehg.abas.projekt.mes.invoker.ApiClient;
+import com.ehg.abas.projekt.mes.invoker.ApiException;
+
+/**
+ * A long-lived, asynchronous transport for MES orders.
+ * <p>
+ * The transport configures one {@link ApiClient} and one {@link ImportAuftragsdatenApi}
+ * and reuses them for every order, instead of building a new client per call like
+ * {@link MesApi#sendeAuftrag(String)}. Orders are accepted by {@link #submit(String)}
+ * without blocking and are sent by a fixed number of worker threads, which caps the
+ * number of requests in flight. Transient failures (no response, 408, 429 and 5xx) are
+ * retried with exponential backoff and jitter; waiting for a retry does not occupy a worker.
+ * </p>
+ *
+ * <p>
+ * The transport is thread-safe. {@link #close()} stops accepting orders and lets the
+ * queued ones finish.
+ * </p>
+ */
+public class MesTransport implements Closeable {
+    private static final int DEFAULT_MAX_IN_FLIGHT = 4;
+    private static final int DEFAULT_MAX_RETRIES = 3;
+    private static final long DEFAULT_BACKOFF_MILLIS = 200;
+    private static final long MAX_BACKOFF_MILLIS = 30000;
+
+    private final Sender sender;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService scheduler;
+    private final int maxRetries;
+    private final long backoffMillis;
+
+    /**
+     * Creates a transport with 4 requests in flight, 3 retries and 200 ms initial backoff.
+     *
+     * @param basePath The base path of the MES endpoint.
+     */
+    public MesTransport(String basePath) {
+        this(basePath, DEFAULT_MAX_IN_FLIGHT, DEFAULT_MAX_RETRIES, DEFAULT_BACKOFF_MILLIS);
+    }
+
+    /**
+     * Creates a transport.
+     *
+     * @param basePath      The base path of the MES endpoint.
+     * @param maxInFlight   The maximum number of requests sent at the same time.
+     * @param maxRetries    The number of retries after a transient failure.
+     * @param backoffMillis The delay before the first retry; it doubles with every retry.
+     */
+    public MesTransport(String basePath, int maxInFlight, int maxRetries, long backoffMillis) {
+        this(importApi(basePath), maxInFlight, maxRetries, backoffMillis);
+    }
+
+    /**
+     * Creates a transport that sends with the given sender instead of the MES client,
+     * e.g. to a local stub endpoint.
+     *
+     * @param sender        Sends one order.
+     * @param maxInFlight   The maximum number of requests sent at the same time.
+     * @param maxRetries    The number of retries after a transient failure.
+     * @param backoffMillis The delay before the first retry; it doubles with every retry.
+     */
+    MesTransport(Sender sender, int maxInFlight, int maxRetries, long backoffMillis) {
+        if (sender == null) {
+            throw new NullPointerException("The sender cannot be null.");
+        }
+        if (maxInFlight < 1 || maxRetries < 0 || backoffMillis < 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive, maxRetries and backoffMillis not negative.");
+        }
+        this.sender = sender;
+
+        this.executor = new ThreadPoolExecutor(maxInFlight, maxInFlight, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory("mes-transport"));
+        this.scheduler = new ScheduledThreadPoolExecutor(1, threadFactory("mes-transport-retry"));
+        this.maxRetries = maxRetries;
+        this.backoffMillis = backoffMillis;
+    }
+
+    private static Sender importApi(String basePath) {
+        if (basePath == null) {
+            throw new NullPointerException("The basePath cannot be null.");
+        }
+        ApiClient client = new ApiClient();
+        client.setBasePath(basePath);
+        ImportAuftragsdatenApi auftragsdaten = new ImportAuftragsdatenApi(client);
+        return body -> MesApi.importiere(auftragsdaten, body);
+    }
+
+    /**
+     * Submits an order. The call returns immediately.
+     *
+     * @param body The rendered records of the order.
+     * @return A future that completes when the MES endpoint accepted the order, or
+     *         completes exceptionally with the last {@link ApiException}.
+     */
+    public CompletableFuture<Void> submit(String body) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        dispatch(body, 0, result);
+        return result;
+    }
+
+    /**
+     * Gets the number of orders waiting for a free worker.
+     *
+     * @return The queue length.
+     */
+    public int getQueued() {
+        return this.executor.getQueue().size();
+    }
+
+    /**
+     * Gets the number of orders currently being sent.
+     *
+     * @return The number of requests in flight.
+     */
+    public int getInFlight() {
+        return this.executor.getActiveCount();
+    }
+
+    private void dispatch(String body, int attempt, CompletableFuture<Void> result) {
+        try {
+            this.executor.execute(() -> send(body, attempt, result));
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private void send(String body, int attempt, CompletableFuture<Void> result) {
+        try {
+            this.sender.send(body);
+            result.complete(null);
+        } catch (ApiException e) {
+            if (attempt < this.maxRetries && isTransient(e)) {
+                scheduleRetry(body, attempt + 1, result, e);
+            } else {
+                result.completeExceptionally(e);
+            }
+        } catch (Throwable e) {
+            // Auch ein Error muss die Future abschließen, sonst wartet der Aufrufer ewig
+            result.completeExceptionally(e);
+        }
+    }
+
+    private void scheduleRetry(String body, int attempt, CompletableFuture<Void> result, ApiException cause) {
+        // Exponentieller Backoff, zufällig zwischen halber und voller Wartezeit
+        long ceiling = Math.min(MAX_BACKOFF_MILLIS, this.backoffMillis << Math.min(attempt - 1, 20));
+        long delay = ceiling > 0 ? ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1) : 0;
+        try {
+            this.scheduler.schedule(() -> dispatch(body, attempt, result), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Checks whether a failure is worth a retry: no HTTP response at all, request timeout,
+     * too many requests or a server error.
+     *
+     * @param e The exception of the failed call.
+     * @return true if the call should be retried.
+     */
+    static boolean isTransient(ApiException e) {
+        int code = e.getCode();
+        return code == 0 || code == 408 || code == 429 || (code >= 500 && code < 600);
+    }
+
+    /**
+     * Stops accepting orders and waits up to 30 seconds for queued orders to be sent.
+     * Retries that are due after closing are not sent; their futures fail.
+     */
+    @Override
+    public void close() {
+        this.scheduler.shutdown();
+        this.executor.shutdown();
+        try {
+            this.executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Sends one order to the MES endpoint.
+     */
+    @FunctionalInterface
+    interface Sender {
+
+        /**
+         * Sends an order.
+         *
+         * @param body The rendered records of the order.
+         * @throws ApiException If the endpoint rejects the order or cannot be reached.
+         */
+        void send(String body) throws ApiException;
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+}
@@ -0,0 +1,260 @@
+package api;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Streams fixed-width MES records into a channel.
+ * <p>
+ * Records are encoded with a {@link MesLayout} into a reusable line buffer and collected
+ * in a pooled direct {@link ByteBuffer}, which is written to the channel whenever it is
+ * full. Memory use therefore stays the same no matter how many records are written.
+ * Characters are written as ISO-8859-1, one byte per character, so the byte layout of a
+ * record matches its character layout.
+ * </p>
+ *
+ * <p>
+ * A writer is not thread-safe. Closing the writer flushes it, returns its buffer to the
+ * pool and closes the channel.
+ * </p>
+ */
+public class MesWriter implements Closeable, Flushable {
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final int POOL_SIZE = 8;
+    private static final ConcurrentLinkedQueue<ByteBuffer> POOL = new ConcurrentLinkedQueue<>();
+
+    private final WritableByteChannel channel;
+    private final MesLayout layout;
+    private final String separator;
+    private final char[] line;
+    private final byte[] record;
+    private ByteBuffer buffer;
+    private long count;
+
+    /**
+     * Creates a writer that ends every record with the system line separator.
+     *
+     * @param channel The channel to write to.
+     * @param layout  The layout of the records.
+     */
+    public MesWriter(WritableByteChannel channel, MesLayout layout) {
+        this(channel, layout, System.lineSeparator());
+    }
+
+    /**
+     * Creates a writer.
+     *
+     * @param channel   The channel to write to.
+     * @param layout    The layout of the records.
+     * @param separator The line separator written after every record.
+     */
+    public MesWriter(WritableByteChannel channel, MesLayout layout, String separator) {
+        if (channel == null || layout == null || separator == null) {
+            throw new NullPointerException("Channel, layout and separator cannot be null.");
+        }
+        this.channel = channel;
+        this.layout = layout;
+        this.separator = separator;
+        this.line = layout.newLine();
+        this.record = new byte[layout.getLineLength() + separator.length()];
+        toLatin1(separator.toCharArray(), 0, separator.length(), this.record, layout.getLineLength());
+        this.buffer = acquire();
+    }
+
+    /**
+     * Exports records into a file. An existing file is overwritten.
+     *
+     * @param file   The target file.
+     * @param layout The layout of the records.
+     * @param saetze The records as field lists.
+     * @return The number of records written.
+     * @throws IOException If the file cannot be written.
+     */
+    public static long export(Path file, MesLayout layout, Iterable<List<MesSatz>> saetze) throws IOException {
+        // Der Kanal wird auch geschlossen, wenn der Konstruktor des Writers scheitert
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                MesWriter writer = new MesWriter(channel, layout)) {
+            for (List<MesSatz> satz : saetze) {
+                writer.write(satz);
+            }
+            return writer.getCount();
+        }
+    }
+
+    /**
+     * Gets the layout of the records.
+     *
+     * @return The layout.
+     */
+    public MesLayout getLayout() {
+        return this.layout;
+    }
+
+    /**
+     * Gets the line separator written after every record.
+     *
+     * @return The line separator.
+     */
+    public String getSeparator() {
+        return this.separator;
+    }
+
+    /**
+     * Gets the number of records written so far.
+     *
+     * @return The number of records.
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Encodes and writes a record given as field list.
+     *
+     * @param satz The field list, created for the layout of this writer.
+     * @throws IOException If the channel cannot be written.
+     */
+    public void write(List<MesSatz> satz) throws IOException {
+        this.layout.encode(satz, this.line, 0);
+        write(this.line, 0);
+    }
+
+    /**
+     * Writes a record.
+     *
+     * @param record The record, created for the layout of this writer.
+     * @throws IOException If the channel cannot be written.
+     */
+    public void write(MesRecord record) throws IOException {
+        if (record.getLayout() != this.layout) {
+            throw new IllegalArgumentException("The record does not use the layout of this writer.");
+        }
+        write(record.line(), 0);
+    }
+
+    /**
+     * Writes a record that is already encoded with the layout of this writer.
+     *
+     * @param encoded The buffer holding the encoded record.
+     * @param off     The start of the record in the buffer.
+     * @throws IOException If the channel cannot be written.
+     */
+    public void write(char[] encoded, int off) throws IOException {
+        toLatin1(encoded, off, this.layout.getLineLength(), this.record, 0);
+        writeBytes(this.record, 0, this.record.length);
+        this.count++;
+    }
+
+    /**
+     * Writes raw bytes, e.g. records rendered elsewhere, through the buffer of this writer.
+     * The bytes are not counted as records.
+     *
+     * @param bytes The bytes to write.
+     * @param off   The start of the bytes.
+     * @param len   The number of bytes.
+     * @throws IOException If the channel cannot be written.
+     */
+    public void writeBytes(byte[] bytes, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            if (!this.buffer.hasRemaining()) {
+                drain();
+            }
+            int n = Math.min(len, this.buffer.remaining());
+            this.buffer.put(bytes, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Adds to the record count, for records passed through {@link #writeBytes(byte[], int, int)}.
+     *
+     * @param records The number of records.
+     */
+    void addCount(long records) {
+        this.count += records;
+    }
+
+    /**
+     * Writes all buffered records to the channel.
+     *
+     * @throws IOException If the channel cannot be written.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        drain();
+    }
+
+    /**
+     * Flushes the writer, releases its buffer and closes the channel.
+     *
+     * @throws IOException If the channel cannot be written or closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.buffer == null) {
+            return;
+        }
+        try {
+            drain();
+        } finally {
+            release(this.buffer);
+            this.buffer = null;
+            this.channel.close();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (this.buffer == null) {
+            throw new IOException("The writer is closed.");
+        }
+    }
+
+    private void drain() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    /**
+     * Copies characters as ISO-8859-1 bytes. Characters outside ISO-8859-1 become '?'.
+     *
+     * @param src    The characters.
+     * @param srcOff The start of the characters.
+     * @param len    The number of characters.
+     * @param dst    The byte buffer.
+     * @param dstOff The start in the byte buffer.
+     */
+    static void toLatin1(char[] src, int srcOff, int len, byte[] dst, int dstOff) {
+        for (int i = 0; i < len; i++) {
+            char c = src[srcOff + i];
+            dst[dstOff + i] = (byte) (c <= 0xFF ? c : '?');
+        }
+    }
+
+    private static ByteBuffer acquire() {
+        ByteBuffer pooled = POOL.poll();
+        return pooled != null ? pooled : ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    private static void release(ByteBuffer buffer) {
+        buffer.clear();
+        if (POOL.size() < POOL_SIZE) {
+            POOL.offer(buffer);
+        }
+    }
+
+}
@@ -8,6 +8,8 @@ import java.net.URISyntaxException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -15,15 +17,19 @@ import org.json.simple.parser.ParseException;
 
 import util.HttpHandler;
 import util.JsonParser;
+import util.JsonReader;
+import util.JsonWriter;
+import util.ResponseConsumer;
 
 /**
  * Provides methods to interact with a RESTful API endpoint.
+ * The methods ending in {@code Async} return immediately with a future.
  */
 public class RestfulApi {
     private static final String URL_OBJECTS = "https://api.restful-api.dev/objects";
 
     /**
-     * Retrieves all objects from the API.
+     * Retrieves all objects from the API. The response is parsed straight from the stream.
      *
      * @return JSONArray containing all objects.
      * @throws IOException    If an I/O exception occurs.
@@ -32,7 +38,43 @@ public class RestfulApi {
      */
     public static JSONArray allObjects() throws IOException, ParseException, URISyntaxException {
         HttpURLConnection conn = HttpHandler.createConnection(URL_OBJECTS, "GET", null, null);
-        return JsonParser.toArray(HttpHandler.getResponse(conn));
+        return HttpHandler.getResponse(conn, ResponseConsumer.toArray());
+    }
+
+    /**
+     * Retrieves all objects from the API without blocking.
+     *
+     * @return A future with the JSONArray containing all objects.
+     */
+    public static CompletableFuture<JSONArray> allObjectsAsync() {
+        return HttpHandler.sendAsync(HttpHandler.GET, URL_OBJECTS, null, null, ResponseConsumer.toArray());
+    }
+
+    /**
+     * Retrieves all objects from the API and hands them to an action one at a time, as
+     * soon as each is parsed. Only one object is held in memory at a time.
+     *
+     * @param action Receives each object.
+     * @return The number of objects.
+     * @throws IOException    If an I/O exception occurs.
+     * @throws ParseException If there's an error parsing the JSON response.
+     * @throws URISyntaxException If the URL is not correctly formatted.
+     */
+    public static int forEachObject(Consumer<JSONObject> action) throws IOException, ParseException, URISyntaxException {
+        HttpURLConnection conn = HttpHandler.createConnection(URL_OBJECTS, "GET", null, null);
+        return HttpHandler.getResponse(conn, ResponseConsumer.forEach(object -> action.accept((JSONObject) object)));
+    }
+
+    /**
+     * Retrieves all objects from the API without blocking and hands them to an action one
+     * at a time, as soon as each is parsed.
+     *
+     * @param action Receives each object, on the thread that reads the response.
+     * @return A future with the number of objects.
+     */
+    public static CompletableFuture<Integer> forEachObjectAsync(Consumer<JSONObject> action) {
+        return HttpHandler.sendAsync(HttpHandler.GET, URL_OBJECTS, null, null,
+                ResponseConsumer.forEach(object -> action.accept((JSONObject) object)));
     }
 
     /**
@@ -49,6 +91,20 @@ public class RestfulApi {
         return JsonParser.toArray(HttpHandler.getResponse(conn));
     }
 
+    /**
+     * Retrieves a list of objects based on provided IDs without blocking.
+     *
+     * @param ids List of IDs to filter objects.
+     * @return A future with the JSONArray containing filtered objects.
+     */
+    public static CompletableFuture<JSONArray> listOfObjectsAsync(List<String> ids) {
+        try {
+            return HttpHandler.sendAsyncArray(HttpHandler.GET, addParametersToUrl(URL_OBJECTS, "id", ids), null, null);
+        } catch (UnsupportedEncodingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     public static String addParametersToUrl(String baseUrl, String paramName, List<String> values) throws UnsupportedEncodingException {
         StringBuilder url = new StringBuilder(baseUrl);
 
@@ -84,6 +140,69 @@ public class RestfulApi {
         return JsonParser.toObject(HttpHandler.getResponse(conn));
     }
 
+    /**
+     * Retrieves a single object by its ID without blocking.
+     *
+     * @param id ID of the object to retrieve.
+     * @return A future with the JSONObject representing the retrieved object.
+     */
+    public static CompletableFuture<JSONObject> singleObjectAsync(String id) {
+        return HttpHandler.sendAsyncObject(HttpHandler.GET, URL_OBJECTS + "/" + id, null, null);
+    }
+
+    /**
+     * Retrieves all objects from the API and binds them directly to RestfulObjects,
+     * without building a JSONObject for each object first.
+     *
+     * @return The objects.
+     * @throws IOException    If an I/O exception occurs.
+     * @throws ParseException If there's an error parsing the JSON response.
+     * @throws URISyntaxException If the URL is not correctly formatted.
+     */
+    public static List<RestfulObject> allRestfulObjects() throws IOException, ParseException, URISyntaxException {
+        HttpURLConnection conn = HttpHandler.createConnection(URL_OBJECTS, "GET", null, null);
+        return HttpHandler.getResponse(conn, ResponseConsumer.bindList(RestfulApi::toRestfulObject));
+    }
+
+    /**
+     * Retrieves all objects from the API as RestfulObjects without blocking.
+     *
+     * @return A future with the objects.
+     */
+    public static CompletableFuture<List<RestfulObject>> allRestfulObjectsAsync() {
+        return HttpHandler.sendAsync(HttpHandler.GET, URL_OBJECTS, null, null, ResponseConsumer.bindList(RestfulApi::toRestfulObject));
+    }
+
+    /**
+     * Retrieves a single object by its ID and binds it directly to a RestfulObject.
+     *
+     * @param id ID of the object to retrieve.
+     * @return The object.
+     * @throws IOException    If an I/O exception occurs.
+     * @throws ParseException If there's an error parsing the JSON response.
+     * @throws URISyntaxException If the URL is not correctly formatted.
+     */
+    public static RestfulObject singleRestfulObject(String id) throws IOException, ParseException, URISyntaxException {
+        HttpURLConnection conn = HttpHandler.createConnection(URL_OBJECTS + "/" + id, "GET", null, null);
+        return HttpHandler.getResponse(conn, ResponseConsumer.bind(RestfulApi::toRestfulObject));
+    }
+
+    /**
+     * Retrieves a single object by its ID as a RestfulObject without blocking.
+     *
+     * @param id ID of the object to retrieve.
+     * @return A future with the object.
+     */
+    public static CompletableFuture<RestfulObject> singleRestfulObjectAsync(String id) {
+        return HttpHandler.sendAsync(HttpHandler.GET, URL_OBJECTS + "/" + id, null, null, ResponseConsumer.bind(RestfulApi::toRestfulObject));
+    }
+
+    private static RestfulObject toRestfulObject(JsonReader reader) throws IOException, ParseException {
+        RestfulObject object = new RestfulObject();
+        object.fromJson(reader);
+        return object;
+    }
+
     /**
      * Adds a new object to the API.
      *
@@ -103,6 +222,42 @@ public class RestfulApi {
         return JsonParser.toObject(HttpHandler.getResponse(conn));
     }
 
+    /**
+     * Adds a new object to the API. The request body is written directly from the object
+     * and the response is bound directly to a RestfulObject.
+     *
+     * @param postObject The object to add.
+     * @return The newly added object.
+     * @throws IOException    If an I/O exception occurs.
+     * @throws ParseException If there's an error parsing the JSON response.
+     * @throws URISyntaxException If the URL is not correctly formatted.
+     */
+    public static RestfulObject addRestfulObject(RestfulObject postObject) throws IOException, ParseException, URISyntaxException {
+        HttpURLConnection conn = HttpHandler.createConnection(URL_OBJECTS, "POST", null, JsonWriter.toJson(postObject), HttpHandler.Validation.OFF);
+        return HttpHandler.getResponse(conn, ResponseConsumer.bind(RestfulApi::toRestfulObject));
+    }
+
+    /**
+     * Adds a new object to the API without blocking.
+     *
+     * @param postObject The object to add.
+     * @return A future with the newly added object.
+     */
+    public static CompletableFuture<RestfulObject> addRestfulObjectAsync(RestfulObject postObject) {
+        return HttpHandler.sendAsync(HttpHandler.POST, URL_OBJECTS, null, JsonWriter.toJson(postObject), HttpHandler.Validation.OFF,
+                ResponseConsumer.bind(RestfulApi::toRestfulObject));
+    }
+
+    /**
+     * Adds a new object to the API without blocking.
+     *
+     * @param postObject JSONObject representing the object to add.
+     * @return A future with the JSONObject representing the newly added object.
+     */
+    public static CompletableFuture<JSONObject> addObjectAsync(JSONObject postObject) {
+        return HttpHandler.sendAsyncObject(HttpHandler.POST, URL_OBJECTS, null, postObject.toString());
+    }
+
     /**
      * Deletes object to the API.
      *
@@ -116,5 +271,15 @@ public class RestfulApi {
         HttpURLConnection conn = HttpHandler.createConnection(URL_OBJECTS + "/" + id, "DELETE", null, null);
         return JsonParser.toObject(HttpHandler.getResponse(conn));
         }
+
+    /**
+     * Deletes an object from the API without blocking.
+     *
+     * @param id Object Id to delete.
+     * @return A future with the JSONObject result.
+     */
+    public static CompletableFuture<JSONObject> deleteObjectAsync(String id) {
+        return HttpHandler.sendAsyncObject(HttpHandler.DELETE, URL_OBJECTS + "/" + id, null, null);
+    }
     
 }
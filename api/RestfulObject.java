@@ -1,13 +1,22 @@
 package api;
 
+import java.io.IOException;
+
 import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+
+import util.JsonNames;
+import util.JsonReader;
+import util.JsonWritable;
+import util.JsonWriter;
 
-public class RestfulObject {
+public class RestfulObject implements JsonWritable {
     private static final String STRING_ID = "id";
     private static final String STRING_NAME = "name";
     private static final String STRING_CREATEDAT = "createdAt";
     private static final String STRING_DATE = "data";
     private static final String STRING_MESSAGE = "message";
+    private static final JsonNames NAMES = new JsonNames(STRING_ID, STRING_NAME, STRING_CREATEDAT, STRING_DATE, STRING_MESSAGE);
 
     private String id;
     private String name;
@@ -95,6 +104,97 @@ public class RestfulObject {
         }
     }
 
+    public void fromJson(JsonReader reader) throws IOException, ParseException {
+        String id = null;
+        String name = null;
+        String createdAt = null;
+        JSONObject data = null;
+        String message = null;
+        // Bit i ist gesetzt, wenn der Schlüssel NAMES.get(i) vorkommt
+        int present = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int index = reader.nextName(NAMES);
+            switch (index) {
+                case 0:
+                    id = reader.nextStringOrNull();
+                    break;
+                case 1:
+                    name = reader.nextStringOrNull();
+                    break;
+                case 2:
+                    createdAt = reader.nextStringOrNull();
+                    break;
+                case 3:
+                    data = (JSONObject) reader.readValue();
+                    break;
+                case 4:
+                    message = reader.nextStringOrNull();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+            if (index >= 0) {
+                present |= 1 << index;
+            }
+        }
+        reader.endObject();
+
+        // Gleiche Regeln wie fromJson(JSONObject)
+        if ((present & 1) != 0) {
+            setId(id);
+
+            if ((present & 1 << 1) != 0) {
+                setName(name);
+            }
+
+            if ((present & 1 << 2) != 0) {
+                setCreatedAt(createdAt);
+            }
+
+            if ((present & 1 << 3) != 0) {
+                setData(data);
+            }
+        } else {
+            if ((present & 1 << 4) != 0) {
+                setMessage(message);
+            }
+        }
+    }
+
+    @Override
+    public void writeJson(JsonWriter writer) {
+        writer.beginObject();
+
+        if (this.id != null) {
+            writer.name(STRING_ID).value(this.id);
+        }
+
+        if (this.name != null) {
+            writer.name(STRING_NAME).value(this.name);
+        }
+
+        if (this.createdAt != null) {
+            writer.name(STRING_CREATEDAT).value(this.createdAt);
+        }
+
+        if (this.data != null) {
+            writer.name(STRING_DATE).value(this.data);
+        }
+
+        if (this.message != null) {
+            writer.name(STRING_MESSAGE).value(this.message);
+        }
+
+        writer.endObject();
+    }
+
+    @Override
+    public String toString() {
+        return JsonWriter.toJson(this);
+    }
+
     @SuppressWarnings("unchecked")
     public JSONObject toJson() {
         JSONObject json = new JSONObject();
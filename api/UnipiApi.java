@@ -1,21 +1,25 @@
 package api;
 
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.net.HttpURLConnection;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
 import org.json.simple.parser.ParseException;
 
 import util.HttpHandler;
-import util.JsonParser;
+import util.JsonWriter;
+import util.ResponseConsumer;
 
 /**
  * This class provides an API to interact with Unipi devices. It allows you to
  * retrieve device information, set and get relay states, and handle analog outputs.
+ * Every method has an asynchronous variant ending in {@code Async}, which returns
+ * immediately with a future instead of blocking the calling thread.
+ * Responses are bound straight from the stream to the device classes, without
+ * building a JSON tree first.
  * 
  * @author Florian Kaufmann
  * @version 0.1
@@ -102,6 +106,19 @@ public class UnipiApi {
         return HttpHandler.getResponse(conn);
     }
 
+    /**
+     * Retrieves the version of the Unipi API without blocking.
+     *
+     * @return A future with the version string of the API.
+     */
+    public CompletableFuture<String> getVersionAsync() {
+        try {
+            return HttpHandler.sendAsync(HttpHandler.GET, getUrl(getName(), getPort()) + "/" + STRING_VERSION, null, null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     /**
      * Retrieves a list of devices connected to the Unipi device.
      *
@@ -111,18 +128,23 @@ public class UnipiApi {
      * @throws ParseException     If the response cannot be parsed.
      */
     public List<UnipiDevice> getDeviceList() throws IOException, URISyntaxException, ParseException {
-        List<UnipiDevice> deviceList = new ArrayList<>();
         String sUrl = addCircuit(getUrlFormat(getName(), getPort(), STRING_JSON) + "/" + STRING_DEVICE_INFO, "all");
         HttpURLConnection conn = HttpHandler.createConnection(sUrl, "GET", null, null);
-        JSONArray json = JsonParser.toArray(HttpHandler.getResponse(conn));
+        return HttpHandler.getResponse(conn, ResponseConsumer.bindList(UnipiDevice::new));
+    }
 
-        for (Object obj : json) {
-            JSONObject jsonObject = (JSONObject) obj;
-            UnipiDevice deviceInfo = new UnipiDevice(jsonObject);
-            deviceList.add(deviceInfo);
+    /**
+     * Retrieves a list of devices connected to the Unipi device without blocking.
+     *
+     * @return A future with a list of UnipiDevice objects representing each connected device.
+     */
+    public CompletableFuture<List<UnipiDevice>> getDeviceListAsync() {
+        try {
+            String sUrl = addCircuit(getUrlFormat(getName(), getPort(), STRING_JSON) + "/" + STRING_DEVICE_INFO, "all");
+            return HttpHandler.sendAsync(HttpHandler.GET, sUrl, null, null, ResponseConsumer.bindList(UnipiDevice::new));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
         }
-
-        return deviceList;
     }
 
     /**
@@ -146,6 +168,24 @@ public class UnipiApi {
         throw new IOException("Device not found.");
     }
 
+    /**
+     * Retrieves a specific device based on its circuit identifier without blocking.
+     *
+     * @param circuit The circuit identifier of the device.
+     * @return A future with the device. It completes exceptionally with an IOException
+     *         if the device is not found.
+     */
+    public CompletableFuture<UnipiDevice> getDeviceAsync(String circuit) {
+        return getDeviceListAsync().thenCompose(deviceList -> {
+            for (UnipiDevice device : deviceList) {
+                if (device.getCircuit().equals(circuit)) {
+                    return CompletableFuture.completedFuture(device);
+                }
+            }
+            return CompletableFuture.failedFuture(new IOException("Device not found."));
+        });
+    }
+
     /**
      * Sets the state of a relay (RO) on the Unipi device.
      *
@@ -157,9 +197,24 @@ public class UnipiApi {
      */
     public UnipiDeviceRO setRelais(UnipiDeviceRO relais) throws IOException, URISyntaxException, ParseException {
         String sUrl = getUrlFormat(getName(), getPort(), STRING_JSON) + "/" + STRING_RO + "/" + relais.getCircuit();
-        String requestBody = "{\"" + STRING_VALUE + "\": " + relais.getValue() + "}";
-        HttpURLConnection conn = HttpHandler.createConnection(sUrl, "POST", null, requestBody);
-        return new UnipiDeviceRO(JsonParser.toObject(HttpHandler.getResponse(conn)));
+        HttpURLConnection conn = HttpHandler.createConnection(sUrl, "POST", null, valueBody(relais.getValue()), HttpHandler.Validation.OFF);
+        return HttpHandler.getResponse(conn, ResponseConsumer.bind(UnipiDeviceRO::new));
+    }
+
+    /**
+     * Sets the state of a relay (RO) on the Unipi device without blocking.
+     *
+     * @param relais The UnipiDeviceRO object containing the relay information to set.
+     * @return A future with the updated UnipiDeviceRO object.
+     */
+    public CompletableFuture<UnipiDeviceRO> setRelaisAsync(UnipiDeviceRO relais) {
+        try {
+            String sUrl = getUrlFormat(getName(), getPort(), STRING_JSON) + "/" + STRING_RO + "/" + relais.getCircuit();
+            return HttpHandler.sendAsync(HttpHandler.POST, sUrl, null, valueBody(relais.getValue()), HttpHandler.Validation.OFF,
+                    ResponseConsumer.bind(UnipiDeviceRO::new));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
     }
 
     /**
@@ -174,7 +229,22 @@ public class UnipiApi {
     public UnipiDeviceRO getRelais(String circuit) throws IOException, URISyntaxException, ParseException {
         String sUrl = addCircuit(getUrlFormat(getName(), getPort(), STRING_JSON) + "/" + STRING_RO, circuit);
         HttpURLConnection conn = HttpHandler.createConnection(sUrl, "GET", null, null);
-        return new UnipiDeviceRO(JsonParser.toObject(HttpHandler.getResponse(conn)));
+        return HttpHandler.getResponse(conn, ResponseConsumer.bind(UnipiDeviceRO::new));
+    }
+
+    /**
+     * Retrieves the state of a specific relay (RO) without blocking.
+     *
+     * @param circuit The circuit identifier of the relay.
+     * @return A future with the UnipiDeviceRO object representing the specified relay.
+     */
+    public CompletableFuture<UnipiDeviceRO> getRelaisAsync(String circuit) {
+        try {
+            String sUrl = addCircuit(getUrlFormat(getName(), getPort(), STRING_JSON) + "/" + STRING_RO, circuit);
+            return HttpHandler.sendAsync(HttpHandler.GET, sUrl, null, null, ResponseConsumer.bind(UnipiDeviceRO::new));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
     }
 
     /**
@@ -186,18 +256,23 @@ public class UnipiApi {
      * @throws URISyntaxException If the URL is not correctly formatted.
      */
     public List<UnipiDeviceRO> getRelaisList() throws ParseException, IOException, URISyntaxException {
-        List<UnipiDeviceRO> roList = new ArrayList<>();
         String sUrl = addCircuit(getUrlFormat(getName(), getPort(), STRING_JSON) + "/" + STRING_RO, "all");
         HttpURLConnection conn = HttpHandler.createConnection(sUrl, "GET", null, null);
-        JSONArray jsonArray = JsonParser.toArray(HttpHandler.getResponse(conn));
+        return HttpHandler.getResponse(conn, ResponseConsumer.bindList(UnipiDeviceRO::new));
+    }
 
-        for (Object object : jsonArray) {
-            JSONObject jsonObject = (JSONObject) object;
-            UnipiDeviceRO roInfo = new UnipiDeviceRO(jsonObject);
-            roList.add(roInfo);
+    /**
+     * Retrieves a list of all relays (RO) connected to the Unipi device without blocking.
+     *
+     * @return A future with a list of UnipiDeviceRO objects representing each connected relay.
+     */
+    public CompletableFuture<List<UnipiDeviceRO>> getRelaisListAsync() {
+        try {
+            String sUrl = addCircuit(getUrlFormat(getName(), getPort(), STRING_JSON) + "/" + STRING_RO, "all");
+            return HttpHandler.sendAsync(HttpHandler.GET, sUrl, null, null, ResponseConsumer.bindList(UnipiDeviceRO::new));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
         }
-
-        return roList;
     }
 
     /**
@@ -212,9 +287,25 @@ public class UnipiApi {
      */
     public UnipiDeviceAO setAnalogOut(String circuit, String value) throws IOException, URISyntaxException, ParseException {
         String sUrl = getUrlFormat(getName(), getPort(), STRING_JSON) + "/" + STRING_AO + "/" + circuit;
-        String requestBody = "{\"" + STRING_VALUE + "\": " + value + "}";
-        HttpURLConnection conn = HttpHandler.createConnection(sUrl, "POST", null, requestBody);
-        return new UnipiDeviceAO(JsonParser.toObject(HttpHandler.getResponse(conn)));
+        HttpURLConnection conn = HttpHandler.createConnection(sUrl, "POST", null, valueBody(value), HttpHandler.Validation.OFF);
+        return HttpHandler.getResponse(conn, ResponseConsumer.bind(UnipiDeviceAO::new));
+    }
+
+    /**
+     * Sets the value of an analog output (AO) on the Unipi device without blocking.
+     *
+     * @param circuit The circuit identifier of the analog output.
+     * @param value   The value to set for the analog output.
+     * @return A future with the updated UnipiDeviceAO object.
+     */
+    public CompletableFuture<UnipiDeviceAO> setAnalogOutAsync(String circuit, String value) {
+        try {
+            String sUrl = getUrlFormat(getName(), getPort(), STRING_JSON) + "/" + STRING_AO + "/" + circuit;
+            return HttpHandler.sendAsync(HttpHandler.POST, sUrl, null, valueBody(value), HttpHandler.Validation.OFF,
+                    ResponseConsumer.bind(UnipiDeviceAO::new));
+        } catch (IOException | ParseException e) {
+            return CompletableFuture.failedFuture(e);
+        }
     }
 
     /**
@@ -229,7 +320,22 @@ public class UnipiApi {
     public UnipiDeviceAO getAnalogOut(String circuit) throws IOException, URISyntaxException, ParseException {
         String sUrl = getUrlFormat(getName(), getPort(), STRING_JSON) + "/" + STRING_AO + "/" + circuit;
         HttpURLConnection conn = HttpHandler.createConnection(sUrl, "GET", null, null);
-        return new UnipiDeviceAO(JsonParser.toObject(HttpHandler.getResponse(conn)));
+        return HttpHandler.getResponse(conn, ResponseConsumer.bind(UnipiDeviceAO::new));
+    }
+
+    /**
+     * Retrieves the value of a specific analog output (AO) without blocking.
+     *
+     * @param circuit The circuit identifier of the analog output.
+     * @return A future with the UnipiDeviceAO object representing the specified analog output.
+     */
+    public CompletableFuture<UnipiDeviceAO> getAnalogOutAsync(String circuit) {
+        try {
+            String sUrl = getUrlFormat(getName(), getPort(), STRING_JSON) + "/" + STRING_AO + "/" + circuit;
+            return HttpHandler.sendAsync(HttpHandler.GET, sUrl, null, null, ResponseConsumer.bind(UnipiDeviceAO::new));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
     }
 
     /**
@@ -241,18 +347,50 @@ public class UnipiApi {
      * @throws ParseException     If the response cannot be parsed.
      */
     public List<UnipiDeviceAO> getAnalogOutList() throws IOException, URISyntaxException, ParseException {
-        List<UnipiDeviceAO> aoList = new ArrayList<>();
         String sUrl = getUrlFormat(getName(), getPort(), STRING_JSON) + "/" + STRING_AO + "/all";
         HttpURLConnection conn = HttpHandler.createConnection(sUrl, "GET", null, null);
-        JSONArray jsonArray = JsonParser.toArray(HttpHandler.getResponse(conn));
+        return HttpHandler.getResponse(conn, ResponseConsumer.bindList(UnipiDeviceAO::new));
+    }
 
-        for (Object object : jsonArray) {
-            JSONObject jsonObject = (JSONObject) object;
-            UnipiDeviceAO aoInfo = new UnipiDeviceAO(jsonObject);
-            aoList.add(aoInfo);
+    /**
+     * Retrieves a list of all analog outputs (AO) connected to the Unipi device without blocking.
+     *
+     * @return A future with a list of UnipiDeviceAO objects representing each connected analog output.
+     */
+    public CompletableFuture<List<UnipiDeviceAO>> getAnalogOutListAsync() {
+        try {
+            String sUrl = getUrlFormat(getName(), getPort(), STRING_JSON) + "/" + STRING_AO + "/all";
+            return HttpHandler.sendAsync(HttpHandler.GET, sUrl, null, null, ResponseConsumer.bindList(UnipiDeviceAO::new));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
         }
+    }
 
-        return aoList;
+    /**
+     * Builds the request body {"value": value}.
+     *
+     * @param value The value, or null.
+     * @return The JSON body.
+     */
+    private static String valueBody(Long value) {
+        return JsonWriter.toJson(writer -> writer.beginObject().name(STRING_VALUE).value(value).endObject());
+    }
+
+    /**
+     * Builds the request body {"value": value} with a numeric value given as text.
+     *
+     * @param value The number, or null.
+     * @return The JSON body.
+     * @throws ParseException If the value is not a number.
+     */
+    private static String valueBody(String value) throws ParseException {
+        BigDecimal number;
+        try {
+            number = value != null ? new BigDecimal(value.trim()) : null;
+        } catch (NumberFormatException e) {
+            throw new ParseException(ParseException.ERROR_UNEXPECTED_TOKEN, value);
+        }
+        return JsonWriter.toJson(writer -> writer.beginObject().name(STRING_VALUE).value(number).endObject());
     }
 
     /**
@@ -1,11 +1,21 @@
 package api;
 
+import java.io.IOException;
+
 import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+
+import util.JsonNames;
+import util.JsonReader;
+import util.JsonWritable;
+import util.JsonWriter;
 
 /**
  * Represents a generic device in the Unipi API.
  */
-public class UnipiDevice {
+public class UnipiDevice implements JsonWritable {
+    private static final JsonNames NAMES = new JsonNames("dev", "family", "model", "sn", "board_count", "circuit");
+
     private String dev;
     private String family;
     private String model;
@@ -46,6 +56,43 @@ public class UnipiDevice {
         this.circuit = (String) json.get("circuit");
     }
 
+    /**
+     * Constructs a new UnipiDevice object directly from JSON, without an intermediate
+     * JSONObject. Unknown members are skipped.
+     *
+     * @param reader The reader, positioned before the JSON object of the device.
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the JSON is malformed or a member has the wrong type.
+     */
+    public UnipiDevice(JsonReader reader) throws IOException, ParseException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(NAMES)) {
+                case 0:
+                    this.dev = reader.nextStringOrNull();
+                    break;
+                case 1:
+                    this.family = reader.nextStringOrNull();
+                    break;
+                case 2:
+                    this.model = reader.nextStringOrNull();
+                    break;
+                case 3:
+                    this.sn = reader.nextLongOrNull();
+                    break;
+                case 4:
+                    this.boardCount = reader.nextLongOrNull();
+                    break;
+                case 5:
+                    this.circuit = reader.nextStringOrNull();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
     /**
      * Gets the device type.
      *
@@ -107,7 +154,24 @@ public class UnipiDevice {
      */
     @Override
     public String toString() {
-        return toJson().toString();
+        return JsonWriter.toJson(this);
+    }
+
+    /**
+     * Writes this UnipiDevice object as a JSON object with the members of {@link #toJson()}.
+     *
+     * @param writer The writer to write to.
+     */
+    @Override
+    public void writeJson(JsonWriter writer) {
+        writer.beginObject()
+                .name("dev").value(this.dev)
+                .name("family").value(this.family)
+                .name("model").value(this.model)
+                .name("sn").value(this.sn)
+                .name("boardCount").value(this.boardCount)
+                .name("circuit").value(this.circuit)
+                .endObject();
     }
 
     /**
@@ -1,15 +1,25 @@
 package api;
 
 import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
 import org.json.simple.JSONArray;
 
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.HashMap;
 
+import util.JsonNames;
+import util.JsonReader;
+import util.JsonWritable;
+import util.JsonWriter;
+
 /**
  * Represents a device with various modes, values, and circuit information.
  */
-public class UnipiDeviceAO {
+public class UnipiDeviceAO implements JsonWritable {
+    private static final JsonNames NAMES = new JsonNames("dev", "mode", "unit", "modes", "value", "circuit");
+
     private String dev;
     private String mode;
     private String unit;
@@ -58,6 +68,49 @@ public class UnipiDeviceAO {
         }
     }
 
+    /**
+     * Constructs a new UnipiDeviceAO object directly from JSON, without an intermediate
+     * JSONObject. Unknown members are skipped.
+     *
+     * @param reader The reader, positioned before the JSON object of the device.
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the JSON is malformed or a member has the wrong type.
+     */
+    public UnipiDeviceAO(JsonReader reader) throws IOException, ParseException {
+        this.modes = new HashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(NAMES)) {
+                case 0:
+                    this.dev = reader.nextStringOrNull();
+                    break;
+                case 1:
+                    this.mode = reader.nextStringOrNull();
+                    break;
+                case 2:
+                    this.unit = reader.nextStringOrNull();
+                    break;
+                case 3:
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String modeKey = reader.nextName();
+                        this.modes.put(modeKey, new Mode(reader));
+                    }
+                    reader.endObject();
+                    break;
+                case 4:
+                    this.value = reader.nextDoubleOrNull();
+                    break;
+                case 5:
+                    this.circuit = reader.nextStringOrNull();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
     /**
      * Gets the device type.
      *
@@ -119,7 +172,28 @@ public class UnipiDeviceAO {
      */
     @Override
     public String toString() {
-        return toJson().toString();
+        return JsonWriter.toJson(this);
+    }
+
+    /**
+     * Writes this UnipiDeviceAO object as a JSON object with the members of {@link #toJson()}.
+     *
+     * @param writer The writer to write to.
+     */
+    @Override
+    public void writeJson(JsonWriter writer) {
+        writer.beginObject()
+                .name("dev").value(this.dev)
+                .name("mode").value(this.mode)
+                .name("unit").value(this.unit)
+                .name("value").value(this.value)
+                .name("circuit").value(this.circuit)
+                .name("modes").beginObject();
+        for (Map.Entry<String, Mode> entry : this.modes.entrySet()) {
+            writer.name(entry.getKey());
+            entry.getValue().writeJson(writer);
+        }
+        writer.endObject().endObject();
     }
 
     /**
@@ -148,7 +222,9 @@ public class UnipiDeviceAO {
     /**
      * Represents a mode with specific attributes.
      */
-    public static class Mode {
+    public static class Mode implements JsonWritable {
+        private static final JsonNames NAMES = new JsonNames("unit", "value", "range");
+
         private String unit;
         private Double value;
         private Double[] range;
@@ -184,6 +260,53 @@ public class UnipiDeviceAO {
             }
         }
 
+        /**
+         * Constructs a new Mode object directly from JSON, without an intermediate
+         * JSONObject. Unknown members are skipped.
+         *
+         * @param reader The reader, positioned before the JSON object of the mode.
+         * @throws IOException    If reading fails.
+         * @throws ParseException If the JSON is malformed or a member has the wrong type.
+         */
+        public Mode(JsonReader reader) throws IOException, ParseException {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName(NAMES)) {
+                    case 0:
+                        this.unit = reader.nextStringOrNull();
+                        break;
+                    case 1:
+                        this.value = reader.nextDoubleOrNull();
+                        break;
+                    case 2:
+                        this.range = readRange(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+
+        private static Double[] readRange(JsonReader reader) throws IOException, ParseException {
+            if (reader.peek() == JsonReader.Token.NULL) {
+                reader.nextNull();
+                return null;
+            }
+            // Evok sendet [min, max], daher reichen meist zwei Plätze
+            Double[] values = new Double[2];
+            int size = 0;
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                values[size++] = reader.nextDouble();
+            }
+            reader.endArray();
+            return size == values.length ? values : Arrays.copyOf(values, size);
+        }
+
         /**
          * Gets the unit of measurement for the mode.
          *
@@ -218,7 +341,27 @@ public class UnipiDeviceAO {
          */
         @Override
         public String toString() {
-            return toJson().toString();
+            return JsonWriter.toJson(this);
+        }
+
+        /**
+         * Writes this Mode object as a JSON object with the members of {@link #toJson()}.
+         *
+         * @param writer The writer to write to.
+         */
+        @Override
+        public void writeJson(JsonWriter writer) {
+            writer.beginObject()
+                    .name("unit").value(this.unit)
+                    .name("value").value(this.value);
+            if (this.range != null) {
+                writer.name("range").beginArray();
+                for (Double r : this.range) {
+                    writer.value(r);
+                }
+                writer.endArray();
+            }
+            writer.endObject();
         }
 
         /**
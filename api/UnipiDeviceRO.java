@@ -1,11 +1,21 @@
 package api;
 
+import java.io.IOException;
+
 import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+
+import util.JsonNames;
+import util.JsonReader;
+import util.JsonWritable;
+import util.JsonWriter;
 
 /**
  * Represents a relay output (RO) device in the Unipi API.
  */
-public class UnipiDeviceRO {
+public class UnipiDeviceRO implements JsonWritable {
+    private static final JsonNames NAMES = new JsonNames("dev", "circuit", "value");
+
     private String dev;
     private String circuit;
     private Long value;
@@ -34,6 +44,34 @@ public class UnipiDeviceRO {
         this.value = (Long) json.get("value");
     }
 
+    /**
+     * Constructs a new UnipiRo object directly from JSON, without an intermediate
+     * JSONObject. Unknown members are skipped.
+     *
+     * @param reader The reader, positioned before the JSON object of the relay output.
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the JSON is malformed or a member has the wrong type.
+     */
+    public UnipiDeviceRO(JsonReader reader) throws IOException, ParseException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName(NAMES)) {
+                case 0:
+                    this.dev = reader.nextStringOrNull();
+                    break;
+                case 1:
+                    this.circuit = reader.nextStringOrNull();
+                    break;
+                case 2:
+                    this.value = reader.nextLongOrNull();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
     /**
      * Gets the device type.
      *
@@ -68,7 +106,21 @@ public class UnipiDeviceRO {
      */
     @Override
     public String toString() {
-        return toJson().toString();
+        return JsonWriter.toJson(this);
+    }
+
+    /**
+     * Writes this UnipiRo object as a JSON object with the members of {@link #toJson()}.
+     *
+     * @param writer The writer to write to.
+     */
+    @Override
+    public void writeJson(JsonWriter writer) {
+        writer.beginObject()
+                .name("dev").value(this.dev)
+                .name("circuit").value(this.circuit)
+                .name("value").value(this.value)
+                .endObject();
     }
 
     /**
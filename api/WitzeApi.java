@@ -7,6 +7,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -83,6 +85,13 @@ public class WitzeApi {
         return toHashMap(json, STRING_ABBREVIATION, STRING_LANGUAGE);
     }
 
+    public CompletableFuture<Map<String, String>> loadLanguagesAsync() {
+        String url = URL_OBJECTS + "/" + STRING_LANGUAGE + "/";
+
+        return HttpHandler.sendAsyncArray(HttpHandler.GET, url, null, null)
+                .thenApply(json -> toHashMap(json, STRING_ABBREVIATION, STRING_LANGUAGE));
+    }
+
     public void setCategory(String category) {
         this.category = category;
     }
@@ -101,7 +110,27 @@ public class WitzeApi {
         return toList(toHashMap(json, STRING_NAME, STRING_LANGUAGE));
     }
 
+    public CompletableFuture<List<String>> getCategoriesAsync() {
+        String url = URL_OBJECTS + "/" + STRING_CATEGORY + "/?" + STRING_LANGUAGE + "=" + this.language;
+
+        return HttpHandler.sendAsyncArray(HttpHandler.GET, url, null, null)
+                .thenApply(json -> toListUnchecked(toHashMap(json, STRING_NAME, STRING_LANGUAGE)));
+    }
+
     public List<String> getJokes(Integer limit) throws IOException, ParseException, URISyntaxException {
+        HttpURLConnection conn = HttpHandler.createConnection(getJokesUrl(limit), "GET", null, null);
+        
+        JSONArray json = JsonParser.toArray(HttpHandler.getResponse(conn));
+
+        return toList(toHashMap(json, STRING_TEXT, STRING_LANGUAGE));
+    }
+
+    public CompletableFuture<List<String>> getJokesAsync(Integer limit) {
+        return HttpHandler.sendAsyncArray(HttpHandler.GET, getJokesUrl(limit), null, null)
+                .thenApply(json -> toListUnchecked(toHashMap(json, STRING_TEXT, STRING_LANGUAGE)));
+    }
+
+    private String getJokesUrl(Integer limit) {
         if (limit == null) {
             limit = 1;
         }
@@ -112,13 +141,7 @@ public class WitzeApi {
             url = url + "&" + STRING_CATEGORY + "=" + this.category;
         }
 
-        url = url + "&" + STRING_LANGUAGE + "=" + this.language;
-
-        HttpURLConnection conn = HttpHandler.createConnection(url, "GET", null, null);
-        
-        JSONArray json = JsonParser.toArray(HttpHandler.getResponse(conn));
-
-        return toList(toHashMap(json, STRING_TEXT, STRING_LANGUAGE));
+        return url + "&" + STRING_LANGUAGE + "=" + this.language;
     }
 
     public String getJoke() throws IOException, ParseException, URISyntaxException {
@@ -132,6 +155,16 @@ public class WitzeApi {
         return result;
     }
 
+    public CompletableFuture<String> getJokeAsync() {
+        return getJokesAsync(1).thenApply(jokes -> {
+            String result = null;
+            for (String joke : jokes) {
+                result = joke;
+            }
+            return result;
+        });
+    }
+
     private Map<String, String> toHashMap(JSONArray json, String keyName, String valueName) {
         Map<String, String> result = new HashMap<>();
 
@@ -163,4 +196,12 @@ public class WitzeApi {
         return result;
     }
 
+    private List<String> toListUnchecked(Map<String, String> list) {
+        try {
+            return toList(list);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
 }
@@ -1,17 +1,15 @@
 package app;
 
-import java.util.List;
-
 import api.MesApi;
-import api.MesSatz;
+import api.MesRecord;
 
 public class MesApp {
     public static void main(String[] args) {
         StringBuilder bodyBuilder = new StringBuilder();
 
-        List<MesSatz> satz = MesApi.genSatzAuftrag();
-        MesApi.setzeWert(satz, "AKNr", "123");
-        bodyBuilder.append(MesApi.toString(satz));
+        MesRecord satz = MesApi.newAuftrag();
+        satz.setLong(MesApi.FELD_AKNR, 123);
+        satz.appendTo(bodyBuilder);
         bodyBuilder.append(System.lineSeparator());
 
         System.out.println(bodyBuilder.toString());
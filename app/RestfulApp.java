@@ -43,9 +43,7 @@ public class RestfulApp {
     private static void handlePut() {
         try {
             RestfulObject restfulObjectPost = createObject("Apple iPad Air" , "4th", "519.99", "256 GB");
-            RestfulObject restfulObjectResult = new RestfulObject();
-            restfulObjectResult.fromJson(RestfulApi.addObject(restfulObjectPost.toJson()));
-            printObject(restfulObjectResult);
+            printObject(RestfulApi.addRestfulObject(restfulObjectPost));
         } catch (IOException | ParseException | URISyntaxException e) {
             System.out.println(e.getMessage());
         }
@@ -71,10 +69,7 @@ public class RestfulApp {
 
     private static void handleGet(String id) {
         try {
-            JSONObject resultJson = RestfulApi.singleObject(id);
-            RestfulObject restfulObject = new RestfulObject();
-            restfulObject.fromJson(resultJson);
-            printObject(restfulObject);
+            printObject(RestfulApi.singleRestfulObject(id));
         } catch (IOException | ParseException | URISyntaxException e) {
             System.out.println(e.getMessage());
         }
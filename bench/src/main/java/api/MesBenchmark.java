@@ -0,0 +1,145 @@
+package api;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks rendering a batch of Satzart 100 records. One operation renders the whole
+ * batch, so the allocation rate per operation is the cost of one batch.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MesBenchmark {
+
+    @Param({ "10000" })
+    int orders;
+
+    private List<List<MesSatz>> saetze;
+    private String[] datum;
+    private String[] aknr;
+    private String[] kundAuftrNr;
+    private long[] rueckmeldNr;
+
+    private MesLayout layout;
+    private char[] line;
+    private MesRecord record;
+
+    @Setup
+    public void setup() {
+        this.saetze = new ArrayList<>(this.orders);
+        this.datum = new String[this.orders];
+        this.aknr = new String[this.orders];
+        this.kundAuftrNr = new String[this.orders];
+        this.rueckmeldNr = new long[this.orders];
+
+        for (int i = 0; i < this.orders; i++) {
+            this.datum[i] = String.format("%02d.%02d.2024 %02d:%02d:%02d", 1 + i % 28, 1 + i % 12, i % 24, i % 60, (i * 7) % 60);
+            this.aknr[i] = "A" + (4711000 + i);
+            this.kundAuftrNr[i] = "K-" + (i % 5000);
+            this.rueckmeldNr[i] = 100000L + i * 7L;
+
+            List<MesSatz> satz = MesApi.genSatzAuftrag();
+            satz.get(MesApi.FELD_DATUM).setWert(this.datum[i]);
+            satz.get(MesApi.FELD_AKNR).setWert(this.aknr[i]);
+            satz.get(MesApi.FELD_KUNDAUFTRNR).setWert(this.kundAuftrNr[i]);
+            satz.get(MesApi.FELD_RUECKMELDNR).setWert(String.valueOf(this.rueckmeldNr[i]));
+            this.saetze.add(satz);
+        }
+
+        this.layout = MesApi.layoutAuftrag();
+        this.line = this.layout.newLine();
+        this.record = MesApi.newAuftrag();
+    }
+
+    @Benchmark
+    public void satzToString(Blackhole bh) {
+        for (List<MesSatz> satz : this.saetze) {
+            for (MesSatz feld : satz) {
+                bh.consume(feld.toString());
+            }
+        }
+    }
+
+    @Benchmark
+    public void apiToString(Blackhole bh) {
+        for (List<MesSatz> satz : this.saetze) {
+            bh.consume(MesApi.toString(satz));
+        }
+    }
+
+    @Benchmark
+    public void layoutEncode(Blackhole bh) {
+        for (List<MesSatz> satz : this.saetze) {
+            this.layout.encode(satz, this.line, 0);
+            bh.consume(this.line);
+        }
+    }
+
+    @Benchmark
+    public void recordFill(Blackhole bh) {
+        for (int i = 0; i < this.orders; i++) {
+            this.record.reset();
+            this.record.setDatum(MesApi.FELD_DATUM, this.datum[i]);
+            this.record.set(MesApi.FELD_AKNR, this.aknr[i]);
+            this.record.set(MesApi.FELD_KUNDAUFTRNR, this.kundAuftrNr[i]);
+            this.record.setLong(MesApi.FELD_RUECKMELDNR, this.rueckmeldNr[i]);
+            bh.consume(this.record.line());
+        }
+    }
+
+    @Benchmark
+    public long writerExport() throws IOException {
+        try (MesWriter writer = new MesWriter(new NullChannel(), this.layout)) {
+            for (List<MesSatz> satz : this.saetze) {
+                writer.write(satz);
+            }
+            return writer.getCount();
+        }
+    }
+
+    /**
+     * A channel that discards everything, so that only rendering is measured.
+     */
+    private static final class NullChannel implements WritableByteChannel {
+        private boolean open = true;
+
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            src.position(src.limit());
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return this.open;
+        }
+
+        @Override
+        public void close() {
+            this.open = false;
+        }
+    }
+
+}
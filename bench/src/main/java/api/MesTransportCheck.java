@@ -0,0 +1,207 @@
+package api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.ehg.abas.projekt.mes.invoker.ApiException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Checks {@link MesTransport} against a local stub of the MES import endpoint: retries
+ * on 408, 429 and 5xx, no retry on other errors, the cap on requests in flight, and that
+ * an {@link Error} of the client completes the future.
+ * <p>
+ * The stub answers every order with the status codes scripted for its body, in order,
+ * and with 200 once the script is used up. The orders are sent with
+ * {@link HttpURLConnection} and failures are thrown as {@link ApiException} with the
+ * status code, like the generated client does.
+ * </p>
+ *
+ * <pre>
+ * java -cp bench/target/benchmarks.jar api.MesTransportCheck
+ * </pre>
+ */
+public final class MesTransportCheck implements AutoCloseable {
+    private static final int MAX_RETRIES = 3;
+    private static final long BACKOFF_MILLIS = 10;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, Queue<Integer>> scripts = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile long delayMillis;
+
+    private MesTransportCheck() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "mes-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int current = this.inFlight.incrementAndGet();
+        this.maxInFlight.accumulateAndGet(current, Math::max);
+        try (InputStream in = exchange.getRequestBody()) {
+            String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            this.attempts.computeIfAbsent(body, key -> new AtomicInteger()).incrementAndGet();
+            if (this.delayMillis > 0) {
+                Thread.sleep(this.delayMillis);
+            }
+            Queue<Integer> script = this.scripts.get(body);
+            Integer scripted = script != null ? script.poll() : null;
+            exchange.sendResponseHeaders(scripted != null ? scripted : 200, -1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.sendResponseHeaders(503, -1);
+        } finally {
+            this.inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private void script(String body, Integer... codes) {
+        this.scripts.put(body, new ConcurrentLinkedQueue<>(List.of(codes)));
+    }
+
+    private int attempts(String body) {
+        AtomicInteger count = this.attempts.get(body);
+        return count != null ? count.get() : 0;
+    }
+
+    private MesTransport.Sender sender() {
+        String url = "http://" + this.server.getAddress().getHostString() + ":" + this.server.getAddress().getPort() + "/import";
+        return body -> {
+            try {
+                HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+                conn.setRequestMethod("POST");
+                conn.setDoOutput(true);
+                try (OutputStream out = conn.getOutputStream()) {
+                    out.write(body.getBytes(StandardCharsets.UTF_8));
+                }
+                int code = conn.getResponseCode();
+                conn.disconnect();
+                if (code >= 300) {
+                    throw new ApiException(code, "HTTP " + code);
+                }
+            } catch (IOException e) {
+                throw new ApiException(e);
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Runs the checks and exits with status 1 if one fails.
+     *
+     * @param args Not used.
+     * @throws Exception If the stub cannot be started.
+     */
+    public static void main(String[] args) throws Exception {
+        List<String> failures = new ArrayList<>();
+        try (MesTransportCheck stub = new MesTransportCheck();
+                MesTransport transport = new MesTransport(stub.sender(), 3, MAX_RETRIES, BACKOFF_MILLIS)) {
+
+            for (int code : new int[] { 408, 429, 500, 503 }) {
+                String body = "retry-" + code;
+                stub.script(body, code, code);
+                Throwable error = outcome(transport.submit(body));
+                check(failures, error == null && stub.attempts(body) == 3,
+                        code + " is retried until it succeeds: " + stub.attempts(body) + " attempts, " + error);
+            }
+
+            stub.script("exhausted", 503, 503, 503, 503, 503);
+            Throwable error = outcome(transport.submit("exhausted"));
+            check(failures, code(error) == 503 && stub.attempts("exhausted") == MAX_RETRIES + 1,
+                    "503 fails after " + MAX_RETRIES + " retries: " + stub.attempts("exhausted") + " attempts, " + error);
+
+            stub.script("rejected", 400);
+            error = outcome(transport.submit("rejected"));
+            check(failures, code(error) == 400 && stub.attempts("rejected") == 1,
+                    "400 is not retried: " + stub.attempts("rejected") + " attempts, " + error);
+
+            stub.delayMillis = 50;
+            stub.maxInFlight.set(0);
+            List<CompletableFuture<Void>> orders = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                orders.add(transport.submit("order-" + i));
+            }
+            int succeeded = 0;
+            for (CompletableFuture<Void> order : orders) {
+                succeeded += outcome(order) == null ? 1 : 0;
+            }
+            check(failures, succeeded == 20 && stub.maxInFlight.get() == 3,
+                    "20 orders with 3 in flight: " + succeeded + " sent, at most " + stub.maxInFlight.get() + " in flight");
+        }
+
+        try (MesTransport transport = new MesTransport(body -> {
+            throw new AssertionError("client failure");
+        }, 1, MAX_RETRIES, BACKOFF_MILLIS)) {
+            Throwable error = outcome(transport.submit("error"));
+            check(failures, error instanceof AssertionError, "an Error completes the future: " + error);
+        }
+
+        if (!failures.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Waits for an order.
+     *
+     * @return null if it was sent, otherwise the cause of the failure.
+     */
+    private static Throwable outcome(CompletableFuture<Void> order) throws InterruptedException {
+        try {
+            order.get(10, TimeUnit.SECONDS);
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (TimeoutException e) {
+            return e;
+        }
+    }
+
+    private static int code(Throwable error) {
+        return error instanceof ApiException ? ((ApiException) error).getCode() : -1;
+    }
+
+    private static void check(List<String> failures, boolean ok, String message) {
+        System.out.println((ok ? "ok      " : "FAILED  ") + message);
+        if (!ok) {
+            failures.add(message);
+        }
+    }
+
+}
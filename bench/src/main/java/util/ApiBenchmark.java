@@ -0,0 +1,131 @@
+package util;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import api.RestfulApi;
+import api.UnipiApi;
+import api.UnipiDevice;
+import api.UnipiDeviceAO;
+import api.UnipiDeviceRO;
+
+/**
+ * Benchmarks the throughput of {@link UnipiApi} and {@link RestfulApi} offline, with the
+ * responses of the fixtures. With {@code replay}, the responses come from memory and the
+ * result shows the cost of the request pipeline and the parsing alone; with
+ * {@code local}, they come from a stub server on the loopback interface and include the
+ * HTTP exchange. Run with {@code -t} to measure several threads.
+ * <p>
+ * The stub server sends with TCP_NODELAY; otherwise every response waits for the
+ * delayed acknowledgement of the client and {@code local} measures only that.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+@State(Scope.Benchmark)
+public class ApiBenchmark {
+    private static final String EVOK = "http://evok:8080";
+    private static final String RESTFUL = "https://api.restful-api.dev";
+
+    /** replay: recorded responses in memory; local: a stub server on the loopback interface. */
+    @Param({ "replay", "local" })
+    String transport;
+
+    private LocalServerTransport local;
+    private ReplayTransport replay;
+    private UnipiApi unipi;
+    private UnipiDeviceRO relais;
+    private String analogOut;
+
+    @Setup
+    public void setup() throws IOException, ParseException {
+        String relay = Fixtures.evokDevice("relay");
+        String ao = Fixtures.evokDevice("ao");
+        this.relais = new UnipiDeviceRO(JsonParser.toObject(relay));
+        this.analogOut = new UnipiDeviceAO(JsonParser.toObject(ao)).getCircuit();
+        String object = ((JSONObject) JsonParser.toArray(Fixtures.restfulObjects(7)).get(6)).toJSONString();
+
+        if (this.transport.equals("local")) {
+            this.local = new LocalServerTransport();
+            HttpHandler.setTransport(this.local);
+        } else {
+            this.replay = new ReplayTransport();
+            HttpHandler.setTransport(this.replay);
+        }
+        respond(HttpHandler.GET, EVOK, "/json/device_info/all", Fixtures.evokAll());
+        respond(HttpHandler.GET, EVOK, "/json/ro/all", Fixtures.evokDevices("relay"));
+        respond(HttpHandler.GET, EVOK, "/json/ao/" + this.analogOut, ao);
+        respond(HttpHandler.POST, EVOK, "/json/ro/" + this.relais.getCircuit(), relay);
+        respond(HttpHandler.GET, RESTFUL, "/objects", Fixtures.restfulObjects(100));
+        respond(HttpHandler.GET, RESTFUL, "/objects/7", object);
+        this.unipi = new UnipiApi("evok", "8080");
+    }
+
+    private void respond(String method, String host, String path, String body) {
+        if (this.local != null) {
+            this.local.stub(method, path, 200, body);
+        } else {
+            this.replay.record(method, host + path, 200, body);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        HttpHandler.setTransport(null);
+        if (this.local != null) {
+            this.local.close();
+        }
+    }
+
+    @Benchmark
+    public List<UnipiDevice> unipiDeviceList() throws IOException, URISyntaxException, ParseException {
+        return this.unipi.getDeviceList();
+    }
+
+    @Benchmark
+    public List<UnipiDeviceRO> unipiRelaisList() throws IOException, URISyntaxException, ParseException {
+        return this.unipi.getRelaisList();
+    }
+
+    @Benchmark
+    public UnipiDeviceAO unipiAnalogOut() throws IOException, URISyntaxException, ParseException {
+        return this.unipi.getAnalogOut(this.analogOut);
+    }
+
+    @Benchmark
+    public UnipiDeviceRO unipiSetRelais() throws IOException, URISyntaxException, ParseException {
+        return this.unipi.setRelais(this.relais);
+    }
+
+    @Benchmark
+    public JSONArray restfulAllObjects() throws IOException, URISyntaxException, ParseException {
+        return RestfulApi.allObjects();
+    }
+
+    @Benchmark
+    public JSONObject restfulSingleObject() throws IOException, URISyntaxException, ParseException {
+        return RestfulApi.singleObject("7");
+    }
+
+}
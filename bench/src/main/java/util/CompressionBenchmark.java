@@ -0,0 +1,170 @@
+package util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Benchmarks GET requests for a restful-api.dev object list with and without gzip, over
+ * the loopback interface and over a link throttled to 250 kB/s like a plant network.
+ * The secondary results {@code wireBytes} and {@code requests} count the response bytes on
+ * the wire and the requests of an iteration; the primary result shows whether
+ * compressing pays off on the link.
+ * <p>
+ * The stub server sends with TCP_NODELAY; otherwise small responses wait for the delayed
+ * acknowledgement of the client and the result shows only that wait.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+@State(Scope.Benchmark)
+public class CompressionBenchmark {
+    private static final int PACKET = 1460;
+
+    /** identity: uncompressed responses; gzip: gzip offered and decompressed while reading. */
+    @Param({ "identity", "gzip" })
+    String encoding;
+
+    /** lan: loopback without limit; plant: 250 kB/s. */
+    @Param({ "lan", "plant" })
+    String link;
+
+    /** The number of objects in the response. */
+    @Param({ "100", "2000" })
+    int objects;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private byte[] plain;
+    private byte[] gzipped;
+    private long bytesPerSecond;
+    private String url;
+    private final AtomicLong sent = new AtomicLong();
+
+    /**
+     * The response bytes sent by the server and the number of requests.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Wire {
+        public long wireBytes;
+        public long requests;
+    }
+
+    @Setup
+    public void setup() throws IOException, ParseException {
+        this.plain = Fixtures.restfulObjects(this.objects).getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(this.plain);
+        }
+        this.gzipped = out.toByteArray();
+        this.bytesPerSecond = this.link.equals("plant") ? 250_000 : 0;
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "compression-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+        this.url = "http://" + this.server.getAddress().getHostString() + ":" + this.server.getAddress().getPort() + "/objects";
+
+        HttpHandler.setResponseCompression(this.encoding.equals("gzip"));
+        HttpHandler.setCoalescing(false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        HttpHandler.setResponseCompression(true);
+        HttpHandler.setCoalescing(true);
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    @Benchmark
+    public String get(Wire wire) throws IOException, URISyntaxException, ParseException {
+        long before = this.sent.get();
+        String response = HttpHandler.getResponse(HttpHandler.createConnection(this.url, HttpHandler.GET, null, null));
+        wire.wireBytes += this.sent.get() - before;
+        wire.requests++;
+        return response;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            byte[] body = this.plain;
+            if (accept != null && accept.contains("gzip")) {
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                body = this.gzipped;
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            // Vor dem Schließen zählen, sonst liest der Client den Zähler zu früh
+            this.sent.addAndGet(body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                write(os, body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void write(OutputStream os, byte[] body) throws IOException {
+        if (this.bytesPerSecond == 0) {
+            os.write(body);
+            return;
+        }
+        // Paketweise senden und so lange warten, wie die Leitung dafür braucht
+        long start = System.nanoTime();
+        for (int off = 0; off < body.length; off += PACKET) {
+            int len = Math.min(PACKET, body.length - off);
+            os.write(body, off, len);
+            os.flush();
+            long due = start + (off + len) * 1_000_000_000L / this.bytesPerSecond;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+}
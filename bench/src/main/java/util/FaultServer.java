@@ -0,0 +1,145 @@
+package util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local stub server that injects faults, to exercise a {@link HostPolicy}.
+ * <p>
+ * Every request is answered with the same JSON body, except that a configurable share
+ * of the requests is answered late, answered with 503 Service Unavailable, or, while the
+ * server is down, dropped without any response. The faults are drawn independently for
+ * every request.
+ * </p>
+ *
+ * <pre>
+ * try (FaultServer server = new FaultServer("{\"value\":1}")) {
+ *     server.setSlowRate(0.05);
+ *     server.setSlowDelay(Duration.ofMillis(200));
+ *     HttpHandler.getResponse(HttpHandler.createConnection(server.url("/rest/relay/1"), HttpHandler.GET, null, null));
+ * }
+ * </pre>
+ */
+public final class FaultServer implements AutoCloseable {
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final byte[] body;
+
+    private volatile double failureRate;
+    private volatile double slowRate;
+    private volatile long slowDelayMillis;
+    private volatile boolean down;
+
+    private final AtomicLong requests = new AtomicLong();
+
+    /**
+     * Starts a server on a free port of the loopback interface.
+     *
+     * @param body The JSON body of every successful response.
+     * @throws IOException If the server cannot be started.
+     */
+    public FaultServer(String body) throws IOException {
+        this.body = body.getBytes(StandardCharsets.UTF_8);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fault-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    /**
+     * @param path The path, starting with a slash.
+     * @return The URL of the path on this server.
+     */
+    public String url(String path) {
+        return "http://" + this.server.getAddress().getHostString() + ":" + this.server.getAddress().getPort() + path;
+    }
+
+    /**
+     * @param rate The share of requests answered with 503, between 0 and 1.
+     */
+    public void setFailureRate(double rate) {
+        this.failureRate = rate;
+    }
+
+    /**
+     * @param rate The share of requests answered after the slow delay, between 0 and 1.
+     */
+    public void setSlowRate(double rate) {
+        this.slowRate = rate;
+    }
+
+    /**
+     * @param delay The delay of slow responses.
+     */
+    public void setSlowDelay(Duration delay) {
+        this.slowDelayMillis = delay.toMillis();
+    }
+
+    /**
+     * @param isDown true to drop every request without a response.
+     */
+    public void setDown(boolean isDown) {
+        this.down = isDown;
+    }
+
+    /**
+     * @return The number of requests received.
+     */
+    public long getRequestCount() {
+        return this.requests.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        this.requests.incrementAndGet();
+        try {
+            if (this.down) {
+                // Verbindung ohne Antwort schließen, wie ein abstürzender Controller
+                exchange.getResponseBody().close();
+                return;
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < this.slowRate) {
+                try {
+                    Thread.sleep(this.slowDelayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (random.nextDouble() < this.failureRate) {
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, this.body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(this.body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+}
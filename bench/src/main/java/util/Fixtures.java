@@ -0,0 +1,112 @@
+package util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Fixtures for the benchmarks.
+ * <p>
+ * {@code evok-all.json} is modelled on the {@code /json/all} response of an Evok
+ * controller with three boards (Neuron L503). {@code restful-objects.json} holds the
+ * objects served by api.restful-api.dev, which {@link #restfulObjects(int)} repeats
+ * to any size.
+ * </p>
+ */
+public final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * Reads a fixture from the class path.
+     *
+     * @param name The file name below {@code /fixtures}.
+     * @return The content of the fixture.
+     * @throws UncheckedIOException If the fixture cannot be read.
+     */
+    public static String resource(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IOException("Fixture " + name + " not found.");
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            in.transferTo(out);
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Gets the Evok device list as the controller sends it, pretty-printed.
+     *
+     * @return The JSON array of all devices.
+     */
+    public static String evokAll() {
+        return resource("evok-all.json");
+    }
+
+    /**
+     * Gets a single Evok device, as returned by e.g. {@code /json/ao/1_01}.
+     *
+     * @param dev The device type, e.g. "ao" or "relay".
+     * @return The JSON object of the first device of this type.
+     * @throws ParseException If the fixture is broken.
+     */
+    public static String evokDevice(String dev) throws ParseException {
+        for (Object entry : JsonParser.toArray(evokAll())) {
+            JSONObject device = (JSONObject) entry;
+            if (dev.equals(device.get("dev"))) {
+                return device.toJSONString();
+            }
+        }
+        throw new IllegalArgumentException("No device of type " + dev + ".");
+    }
+
+    /**
+     * Gets all Evok devices of one type, as returned by e.g. {@code /json/ro/all}.
+     *
+     * @param dev The device type, e.g. "ao" or "relay".
+     * @return The JSON array of all devices of this type.
+     * @throws ParseException If the fixture is broken.
+     */
+    @SuppressWarnings("unchecked")
+    public static String evokDevices(String dev) throws ParseException {
+        JSONArray devices = new JSONArray();
+        for (Object entry : JsonParser.toArray(evokAll())) {
+            if (dev.equals(((JSONObject) entry).get("dev"))) {
+                devices.add(entry);
+            }
+        }
+        return devices.toJSONString();
+    }
+
+    /**
+     * Builds a restful-api.dev object list of the given size in a single line, like the
+     * service sends it. The sample objects are repeated with ascending ids.
+     *
+     * @param count The number of objects.
+     * @return The JSON array.
+     * @throws ParseException If the fixture is broken.
+     */
+    @SuppressWarnings("unchecked")
+    public static String restfulObjects(int count) throws ParseException {
+        JSONArray samples = JsonParser.toArray(resource("restful-objects.json"));
+        JSONArray objects = new JSONArray();
+        for (int i = 0; i < count; i++) {
+            JSONObject object = new JSONObject();
+            object.putAll((JSONObject) samples.get(i % samples.size()));
+            object.put("id", String.valueOf(i + 1));
+            objects.add(object);
+        }
+        return objects.toJSONString();
+    }
+
+}
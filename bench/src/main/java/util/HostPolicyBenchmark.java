@@ -0,0 +1,84 @@
+package util;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the latency distribution of GET requests against a {@link FaultServer} that
+ * answers 5 % of the requests 100 ms late and 2 % with 503. Compare the p99 of the
+ * sample time between the policies.
+ * <p>
+ * The server sends with TCP_NODELAY; otherwise every small response waits about 40 ms
+ * for the delayed acknowledgement of the client.
+ * </p>
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+@State(Scope.Benchmark)
+public class HostPolicyBenchmark {
+
+    /** none: no policy; retry: retries only; hedge: retries and hedged requests. */
+    @Param({ "none", "retry", "hedge" })
+    String policy;
+
+    private FaultServer server;
+    private String url;
+    private String host;
+
+    @Setup
+    public void setup() throws IOException {
+        this.server = new FaultServer("{\"relay\":\"1\",\"value\":1}");
+        this.server.setSlowRate(0.05);
+        this.server.setSlowDelay(Duration.ofMillis(100));
+        this.server.setFailureRate(0.02);
+        this.url = this.server.url("/rest/relay/1");
+        this.host = URI.create(this.url).getHost();
+
+        if (!this.policy.equals("none")) {
+            HostPolicy hostPolicy = new HostPolicy();
+            hostPolicy.setRetryBackoff(Duration.ofMillis(5));
+            hostPolicy.setFailureThreshold(0);
+            hostPolicy.setHedging(this.policy.equals("hedge"));
+            HttpHandler.setPolicy(this.host, hostPolicy);
+        }
+        HttpHandler.setCoalescing(false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        HttpHandler.setPolicy(this.host, null);
+        HttpHandler.setCoalescing(true);
+        this.server.close();
+    }
+
+    @Benchmark
+    public String get() throws URISyntaxException, ParseException {
+        try {
+            return HttpHandler.getResponse(HttpHandler.createConnection(this.url, HttpHandler.GET, null, null));
+        } catch (IOException e) {
+            // Ohne Policy schlagen die 503-Antworten durch; gemessen wird trotzdem
+            return e.getMessage();
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+package util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks reading a response body with {@link HttpHandler#readFromBufferedReader(BufferedReader)}.
+ * The reader is created per call, as for every response.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HttpHandlerBenchmark {
+
+    /** evok: the pretty-printed Evok device list; restful: 10000 objects on one line. */
+    @Param({ "evok", "restful" })
+    String body;
+
+    private String response;
+
+    @Setup
+    public void setup() throws ParseException {
+        this.response = this.body.equals("evok") ? Fixtures.evokAll() : Fixtures.restfulObjects(10000);
+    }
+
+    @Benchmark
+    public String readFromBufferedReader() throws IOException {
+        try (BufferedReader br = new BufferedReader(new StringReader(this.response))) {
+            return HttpHandler.readFromBufferedReader(br);
+        }
+    }
+
+}
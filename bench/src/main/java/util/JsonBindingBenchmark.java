@@ -0,0 +1,64 @@
+package util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import api.UnipiDevice;
+
+/**
+ * Benchmarks binding the Evok device list directly to {@link UnipiDevice} objects
+ * against building a JSONObject per device with {@link JsonReader#readValue()} and
+ * against parsing the whole body with {@link JsonParser#toArray(String)}. Run with
+ * {@code -prof gc} to compare the allocation per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonBindingBenchmark {
+    private byte[] body;
+
+    @Setup
+    public void setup() {
+        this.body = Fixtures.evokAll().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<UnipiDevice> bind() throws IOException, ParseException {
+        return ResponseConsumer.bindList(UnipiDevice::new).consume(new ByteArrayInputStream(this.body));
+    }
+
+    @Benchmark
+    public List<UnipiDevice> treePerElement() throws IOException, ParseException {
+        return ResponseConsumer.toList(element -> new UnipiDevice((JSONObject) element)).consume(new ByteArrayInputStream(this.body));
+    }
+
+    @Benchmark
+    public List<UnipiDevice> wholeTree() throws ParseException {
+        List<UnipiDevice> devices = new ArrayList<>();
+        for (Object element : JsonParser.toArray(new String(this.body, StandardCharsets.UTF_8))) {
+            devices.add(new UnipiDevice((JSONObject) element));
+        }
+        return devices;
+    }
+
+}
@@ -0,0 +1,82 @@
+package util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link JsonParser#toObject(String)} and {@link JsonParser#toArray(String)}
+ * on Evok and restful-api.dev responses, and the request body checks
+ * {@link JsonParser#validate(String)} and {@link JsonParser#checkStructure(String)}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonParserBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Evok {
+        String device;
+        String all;
+
+        @Setup
+        public void setup() throws ParseException {
+            this.device = Fixtures.evokDevice("ao");
+            this.all = Fixtures.evokAll();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Restful {
+        @Param({ "13", "1000", "10000" })
+        int objects;
+
+        String json;
+
+        @Setup
+        public void setup() throws ParseException {
+            this.json = Fixtures.restfulObjects(this.objects);
+        }
+    }
+
+    @Benchmark
+    public JSONObject toObjectEvokDevice(Evok evok) throws ParseException {
+        return JsonParser.toObject(evok.device);
+    }
+
+    @Benchmark
+    public JSONArray toArrayEvokAll(Evok evok) throws ParseException {
+        return JsonParser.toArray(evok.all);
+    }
+
+    @Benchmark
+    public JSONArray toArrayRestful(Restful restful) throws ParseException {
+        return JsonParser.toArray(restful.json);
+    }
+
+    @Benchmark
+    public void validateEvokDevice(Evok evok) throws ParseException {
+        JsonParser.validate(evok.device);
+    }
+
+    @Benchmark
+    public void checkStructureEvokDevice(Evok evok) throws ParseException {
+        JsonParser.checkStructure(evok.device);
+    }
+
+}
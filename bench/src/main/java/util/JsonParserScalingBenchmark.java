@@ -0,0 +1,104 @@
+package util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONArray;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks how {@link JsonParser#toArray(String)} scales with the number of parsing
+ * threads, against one shared parser behind a lock and a new parser per call.
+ * <p>
+ * Every variant runs with 1, 2 and 4 threads. The result is the total throughput of all
+ * threads. With a parser per thread or per call it grows linearly with the threads up to
+ * the number of cores; with the shared parser it stays at the single-thread value.
+ * Compare the scores of one group, e.g. {@code perThread*}.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonParserScalingBenchmark {
+    private static final JSONParser SHARED = new JSONParser();
+
+    private String relays;
+
+    @Setup
+    public void setup() throws ParseException {
+        this.relays = Fixtures.evokDevices("relay");
+    }
+
+    private static synchronized Object parseShared(String json) throws ParseException {
+        return SHARED.parse(json);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public JSONArray perThread1() throws ParseException {
+        return JsonParser.toArray(this.relays);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public JSONArray perThread2() throws ParseException {
+        return JsonParser.toArray(this.relays);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public JSONArray perThread4() throws ParseException {
+        return JsonParser.toArray(this.relays);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object shared1() throws ParseException {
+        return parseShared(this.relays);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public Object shared2() throws ParseException {
+        return parseShared(this.relays);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object shared4() throws ParseException {
+        return parseShared(this.relays);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object newPerCall1() throws ParseException {
+        return new JSONParser().parse(this.relays);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public Object newPerCall2() throws ParseException {
+        return new JSONParser().parse(this.relays);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object newPerCall4() throws ParseException {
+        return new JSONParser().parse(this.relays);
+    }
+
+}
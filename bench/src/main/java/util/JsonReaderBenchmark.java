@@ -0,0 +1,66 @@
+package util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONArray;
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks reading a large JSON array element by element with {@link JsonReader}
+ * against reading the whole body into a string and parsing it with
+ * {@link JsonParser#toArray(String)}. Run with {@code -prof gc} to compare the
+ * allocation per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonReaderBenchmark {
+
+    /** The number of objects in the array. */
+    @Param({ "100", "10000" })
+    int count;
+
+    private byte[] body;
+
+    @Setup
+    public void setup() throws ParseException {
+        this.body = Fixtures.restfulObjects(this.count).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void streaming(Blackhole blackhole) throws IOException, ParseException {
+        try (JsonReader reader = new JsonReader(new ByteArrayInputStream(this.body))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                blackhole.consume(reader.readValue());
+            }
+            reader.endArray();
+            reader.endDocument();
+        }
+    }
+
+    @Benchmark
+    public JSONArray wholeBody() throws IOException, ParseException {
+        byte[] bytes = new ByteArrayInputStream(this.body).readAllBytes();
+        return JsonParser.toArray(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+}
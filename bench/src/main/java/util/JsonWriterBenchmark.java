@@ -0,0 +1,92 @@
+package util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import api.UnipiDeviceAO;
+import api.UnipiDeviceRO;
+
+/**
+ * Benchmarks serializing the Unipi model classes with {@link JsonWriter} against building
+ * a JSONObject with {@code toJson()} and printing it, and writing the text to a stream
+ * with {@link JsonWriter#writeTo(OutputStream)} against {@code String.getBytes}. Run with
+ * {@code -prof gc} to compare the allocation per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonWriterBenchmark {
+    private UnipiDeviceRO relais;
+    private UnipiDeviceAO analogOut;
+    private JsonWriter writer;
+    private OutputStream sink;
+
+    @Setup
+    public void setup(Blackhole blackhole) throws ParseException {
+        this.relais = new UnipiDeviceRO(JsonParser.toObject(Fixtures.evokDevice("relay")));
+        this.analogOut = new UnipiDeviceAO(JsonParser.toObject(Fixtures.evokDevice("ao")));
+        this.writer = new JsonWriter();
+        this.sink = new OutputStream() {
+            @Override
+            public void write(int b) {
+                blackhole.consume(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                blackhole.consume(b);
+            }
+        };
+    }
+
+    @Benchmark
+    public String relaisWriter() {
+        return this.relais.toString();
+    }
+
+    @Benchmark
+    public String relaisJsonObject() {
+        return this.relais.toJson().toString();
+    }
+
+    @Benchmark
+    public String analogOutWriter() {
+        return this.analogOut.toString();
+    }
+
+    @Benchmark
+    public String analogOutJsonObject() {
+        return this.analogOut.toJson().toString();
+    }
+
+    @Benchmark
+    public void analogOutWriteTo() throws IOException {
+        this.writer.reset();
+        this.analogOut.writeJson(this.writer);
+        this.writer.writeTo(this.sink);
+    }
+
+    @Benchmark
+    public void analogOutGetBytes() throws IOException {
+        this.sink.write(this.analogOut.toJson().toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+}
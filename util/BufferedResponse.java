@@ -0,0 +1,81 @@
+package util;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Optional;
+
+import javax.net.ssl.SSLSession;
+
+/**
+ * A response whose body does not come from the connection of the client, e.g. from the
+ * {@link HttpCache} or from a request shared by several callers.
+ */
+final class BufferedResponse implements HttpResponse<InputStream> {
+    private final HttpRequest request;
+    private final int statusCode;
+    private final HttpHeaders headers;
+    private final HttpClient.Version version;
+    private final InputStream body;
+
+    /**
+     * Creates a response.
+     *
+     * @param request    The request the response answers.
+     * @param statusCode The status code.
+     * @param headers    The response headers.
+     * @param version    The HTTP version the response was received with.
+     * @param body       The body, read by exactly one caller.
+     */
+    BufferedResponse(HttpRequest request, int statusCode, HttpHeaders headers, HttpClient.Version version, InputStream body) {
+        this.request = request;
+        this.statusCode = statusCode;
+        this.headers = headers;
+        this.version = version;
+        this.body = body;
+    }
+
+    @Override
+    public int statusCode() {
+        return this.statusCode;
+    }
+
+    @Override
+    public HttpRequest request() {
+        return this.request;
+    }
+
+    @Override
+    public Optional<HttpResponse<InputStream>> previousResponse() {
+        return Optional.empty();
+    }
+
+    @Override
+    public HttpHeaders headers() {
+        return this.headers;
+    }
+
+    @Override
+    public InputStream body() {
+        return this.body;
+    }
+
+    @Override
+    public Optional<SSLSession> sslSession() {
+        return Optional.empty();
+    }
+
+    @Override
+    public URI uri() {
+        return this.request.uri();
+    }
+
+    @Override
+    public HttpClient.Version version() {
+        return this.version;
+    }
+
+}
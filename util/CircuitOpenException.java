@@ -0,0 +1,32 @@
+package util;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of sending a request while the circuit of its host is open, see
+ * {@link HostPolicy}.
+ */
+public class CircuitOpenException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final String host;
+
+    /**
+     * Creates the exception.
+     *
+     * @param host        The host considered down.
+     * @param retryMillis The time until the next trial request is allowed.
+     */
+    public CircuitOpenException(String host, long retryMillis) {
+        super("The circuit for " + host + " is open, failing fast for another " + retryMillis + " ms.");
+        this.host = host;
+    }
+
+    /**
+     * @return The host considered down.
+     */
+    public String getHost() {
+        return this.host;
+    }
+
+}
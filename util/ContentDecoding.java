@@ -0,0 +1,148 @@
+package util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.net.HttpURLConnection;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compresses request bodies and decompresses response bodies.
+ * <p>
+ * Responses with {@code Content-Encoding: gzip} or {@code deflate} are decompressed
+ * while the caller reads them, so no stage after the network sees compressed data and
+ * memory stays constant for any body size. For {@code deflate}, both the zlib format of
+ * the standard and the raw format some servers send are accepted.
+ * </p>
+ */
+final class ContentDecoding {
+    static final String ACCEPT_ENCODING = "Accept-Encoding";
+    static final String CONTENT_ENCODING = "Content-Encoding";
+    static final String ACCEPTED = "gzip, deflate";
+    static final String GZIP = "gzip";
+
+    private static final String DEFLATE = "deflate";
+    private static final int BUFFER_SIZE = 8192;
+
+    private ContentDecoding() {
+    }
+
+    /**
+     * Compresses a request body with gzip.
+     *
+     * @param body The body.
+     * @return The compressed body.
+     */
+    static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            // Schreibt nur in den Speicher
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decompresses the body of a response if it has a supported content encoding.
+     *
+     * @param response The response from the network.
+     * @return The response with the decoded body and without the Content-Encoding and
+     *         Content-Length headers, or the response itself if it is not encoded.
+     */
+    static HttpResponse<InputStream> decode(HttpResponse<InputStream> response) {
+        String encoding = response.headers().firstValue(CONTENT_ENCODING).orElse(null);
+        if (encoding == null) {
+            return response;
+        }
+        encoding = encoding.trim().toLowerCase();
+        boolean gzip = encoding.equals(GZIP) || encoding.equals("x-gzip");
+        if (!gzip && !encoding.equals(DEFLATE)) {
+            return response;
+        }
+        int code = response.statusCode();
+        if (code == HttpURLConnection.HTTP_NO_CONTENT || code == HttpURLConnection.HTTP_NOT_MODIFIED
+                || "HEAD".equals(response.request().method())) {
+            return response;
+        }
+
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.putAll(response.headers().map());
+        headers.remove(CONTENT_ENCODING);
+        headers.remove("Content-Length");
+        return new BufferedResponse(response.request(), code, HttpHeaders.of(headers, (name, value) -> true), response.version(),
+                new DecodingInputStream(response.body(), gzip));
+    }
+
+    /**
+     * Creates the decompressor only on the first read, because reading the gzip header
+     * blocks until the first bytes of the body have arrived.
+     */
+    private static final class DecodingInputStream extends InputStream {
+        private final InputStream raw;
+        private final boolean gzip;
+        private InputStream decoded;
+
+        private DecodingInputStream(InputStream raw, boolean gzip) {
+            this.raw = raw;
+            this.gzip = gzip;
+        }
+
+        private InputStream decoded() throws IOException {
+            if (this.decoded == null) {
+                this.decoded = this.gzip ? new GZIPInputStream(this.raw, BUFFER_SIZE) : inflate(this.raw);
+            }
+            return this.decoded;
+        }
+
+        private static InputStream inflate(InputStream raw) throws IOException {
+            PushbackInputStream in = new PushbackInputStream(raw, 2);
+            int cmf = in.read();
+            int flg = in.read();
+            if (flg >= 0) {
+                in.unread(flg);
+            }
+            if (cmf >= 0) {
+                in.unread(cmf);
+            }
+            // zlib-Kopf: Methode 8 und Prüfsumme über beide Bytes, sonst rohes deflate
+            boolean zlib = cmf >= 0 && flg >= 0 && (cmf & 0x0F) == 8 && ((cmf << 8) | flg) % 31 == 0;
+            return new InflaterInputStream(in, new Inflater(!zlib), BUFFER_SIZE);
+        }
+
+        @Override
+        public int read() throws IOException {
+            return decoded().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return decoded().read(b, off, len);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return this.decoded != null ? this.decoded.available() : 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.decoded != null) {
+                this.decoded.close();
+            } else {
+                this.raw.close();
+            }
+        }
+    }
+
+}
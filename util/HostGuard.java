@@ -0,0 +1,412 @@
+package util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Applies the {@link HostPolicy} of a host to its requests and keeps the state of its
+ * circuit and its rate limiter.
+ * <p>
+ * Requests to hosts without a policy are handed on unchanged. With a policy, each
+ * attempt is sent without blocking; a blocking caller waits for the final outcome, so
+ * retries and hedging behave the same on both paths.
+ * </p>
+ */
+final class HostGuard {
+    // Unterhalb dieser Anzahl Messungen ist das p95 eines Endpunkts nicht belastbar
+    private static final long HEDGE_MIN_SAMPLES = 20;
+    private static final double HEDGE_QUANTILE = 0.95;
+
+    private final ConcurrentHashMap<String, HostPolicy> policies = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Circuit> circuits = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, RateLimiter> limiters = new ConcurrentHashMap<>();
+    private volatile HostPolicy defaultPolicy;
+
+    void setPolicy(String host, HostPolicy policy) {
+        if (host == null) {
+            throw new NullPointerException("The host cannot be null.");
+        }
+        if (policy == null) {
+            this.policies.remove(host);
+        } else {
+            this.policies.put(host, policy);
+        }
+    }
+
+    HostPolicy getPolicy(String host) {
+        HostPolicy policy = host != null ? this.policies.get(host) : null;
+        return policy != null ? policy : this.defaultPolicy;
+    }
+
+    void setDefaultPolicy(HostPolicy policy) {
+        this.defaultPolicy = policy;
+    }
+
+    HostPolicy getDefaultPolicy() {
+        return this.defaultPolicy;
+    }
+
+    HostPolicy.CircuitState getCircuitState(String host) {
+        Circuit circuit = this.circuits.get(host);
+        return circuit != null ? circuit.state.get() : HostPolicy.CircuitState.CLOSED;
+    }
+
+    /**
+     * Sends a request according to the policy of its host, blocking.
+     *
+     * @param builder   The complete request.
+     * @param next      Sends a request without a policy.
+     * @param nextAsync Sends one attempt of a request with a policy.
+     * @param metrics   The metrics for the hedge delay, or null.
+     * @return The response.
+     * @throws IOException If all attempts fail, or a {@link CircuitOpenException}.
+     */
+    HttpResponse<InputStream> send(HttpRequest.Builder builder, RequestSender next, RequestSender.Async nextAsync,
+            HttpMetrics metrics) throws IOException {
+        HttpRequest request = builder.build();
+        HostPolicy policy = getPolicy(request.uri().getHost());
+        if (policy == null) {
+            return next.send(builder);
+        }
+        return await(attempt(new Call(request, builder, nextAsync, policy, metrics), 0), request.uri());
+    }
+
+    /**
+     * Sends a request according to the policy of its host without blocking.
+     *
+     * @param builder The complete request.
+     * @param next    Sends one attempt.
+     * @param metrics The metrics for the hedge delay, or null.
+     * @return The future response.
+     */
+    CompletableFuture<HttpResponse<InputStream>> sendAsync(HttpRequest.Builder builder, RequestSender.Async next, HttpMetrics metrics) {
+        HttpRequest request = builder.build();
+        HostPolicy policy = getPolicy(request.uri().getHost());
+        if (policy == null) {
+            return next.sendAsync(builder);
+        }
+        return attempt(new Call(request, builder, next, policy, metrics), 0);
+    }
+
+    /**
+     * Gets the rate limiter of a host. A new one is created when the rate or burst of the
+     * policy has changed.
+     */
+    private RateLimiter limiter(String host, HostPolicy policy) {
+        double rate = policy.getRateLimit();
+        if (rate == 0) {
+            return null;
+        }
+        int burst = policy.getRateBurst();
+        RateLimiter limiter = this.limiters.get(host);
+        if (limiter != null && limiter.getRate() == rate && limiter.getBurst() == burst) {
+            return limiter;
+        }
+        return this.limiters.compute(host, (key, current) -> current != null && current.getRate() == rate
+                && current.getBurst() == burst ? current : new RateLimiter(rate, burst));
+    }
+
+    private CompletableFuture<HttpResponse<InputStream>> attempt(Call call, int attempt) {
+        RateLimiter limiter = call.limiter;
+        if (limiter != null) {
+            switch (call.policy.getRateLimitMode()) {
+                case FAIL_FAST:
+                    if (!limiter.tryAcquire()) {
+                        long millis = TimeUnit.NANOSECONDS.toMillis(limiter.nanosUntilAvailable());
+                        return CompletableFuture.failedFuture(new RateLimitException(call.host, millis));
+                    }
+                    break;
+                case BLOCK:
+                    try {
+                        limiter.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return CompletableFuture.failedFuture(new InterruptedIOException("Request to " + call.request.uri() + " was interrupted."));
+                    }
+                    break;
+                default:
+                    long wait = limiter.reserve();
+                    if (wait > 0) {
+                        return CompletableFuture.supplyAsync(() -> null, CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS))
+                                .thenCompose(ignored -> send(call, attempt));
+                    }
+                    break;
+            }
+        }
+        return send(call, attempt);
+    }
+
+    private CompletableFuture<HttpResponse<InputStream>> send(Call call, int attempt) {
+        long wait = call.circuit.acquire(call.policy);
+        if (wait >= 0) {
+            return CompletableFuture.failedFuture(new CircuitOpenException(call.host, wait));
+        }
+
+        CompletableFuture<HttpResponse<InputStream>> sent;
+        try {
+            sent = call.hedge ? hedged(call) : call.next.sendAsync(call.builder);
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+
+        return sent.handle((response, error) -> {
+            if (error != null) {
+                Throwable cause = unwrap(error);
+                if (!(cause instanceof IOException)) {
+                    // Kein Fehler des Hosts, aber ein laufender Versuch muss freigegeben werden
+                    call.circuit.release();
+                    return CompletableFuture.<HttpResponse<InputStream>>failedFuture(cause);
+                }
+                call.circuit.failure(call.policy);
+                if (attempt < call.policy.getMaxRetries() && (call.idempotent || isConnectFailure(cause))) {
+                    return retryLater(call, attempt, -1);
+                }
+                return CompletableFuture.<HttpResponse<InputStream>>failedFuture(cause);
+            }
+
+            int code = response.statusCode();
+            boolean unavailable = code == 502 || code == 503 || code == 504;
+            if (unavailable) {
+                call.circuit.failure(call.policy);
+            } else {
+                call.circuit.success();
+            }
+            if ((unavailable || code == 429) && call.idempotent && attempt < call.policy.getMaxRetries()) {
+                long retryAfter = retryAfterMillis(response);
+                discard(response);
+                return retryLater(call, attempt, retryAfter);
+            }
+            return CompletableFuture.completedFuture(response);
+        }).thenCompose(future -> future);
+    }
+
+    private CompletableFuture<HttpResponse<InputStream>> retryLater(Call call, int attempt, long retryAfter) {
+        long cap = call.policy.getMaxBackoff().toMillis();
+        long pause;
+        if (retryAfter >= 0) {
+            pause = Math.min(retryAfter, cap);
+        } else {
+            // Exponentiell wachsende Obergrenze, zufällig darunter ("full jitter")
+            long ceiling = Math.min(cap, call.policy.getRetryBackoff().toMillis() << Math.min(attempt, 20));
+            pause = ceiling > 0 ? ThreadLocalRandom.current().nextLong(ceiling + 1) : 0;
+        }
+        return CompletableFuture.supplyAsync(() -> null, CompletableFuture.delayedExecutor(pause, TimeUnit.MILLISECONDS))
+                .thenCompose(ignored -> attempt(call, attempt + 1));
+    }
+
+    /**
+     * Sends the request and, if it has not been answered after the hedge delay, a second
+     * identical one. The first response wins; the body of the other one is discarded.
+     */
+    private CompletableFuture<HttpResponse<InputStream>> hedged(Call call) {
+        CompletableFuture<HttpResponse<InputStream>> result = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        launch(call, result, outstanding);
+        CompletableFuture.delayedExecutor(hedgeDelayMillis(call), TimeUnit.MILLISECONDS).execute(() -> {
+            // Eine Absicherung nur, solange das Budget des Hosts es erlaubt
+            if (!result.isDone() && (call.limiter == null || call.limiter.tryAcquire())) {
+                outstanding.incrementAndGet();
+                launch(call, result, outstanding);
+            }
+        });
+        return result;
+    }
+
+    private static void launch(Call call, CompletableFuture<HttpResponse<InputStream>> result, AtomicInteger outstanding) {
+        CompletableFuture<HttpResponse<InputStream>> sent;
+        try {
+            sent = call.next.sendAsync(call.builder.copy());
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        sent.whenComplete((response, error) -> {
+            if (response != null) {
+                if (!result.complete(response)) {
+                    discard(response);
+                }
+            } else if (outstanding.decrementAndGet() == 0) {
+                result.completeExceptionally(unwrap(error));
+            }
+        });
+    }
+
+    private static long hedgeDelayMillis(Call call) {
+        long minimum = call.policy.getHedgeDelay().toMillis();
+        if (call.metrics == null) {
+            return minimum;
+        }
+        long p95 = call.metrics.latency(call.request.uri(), call.request.method(), HEDGE_QUANTILE, HEDGE_MIN_SAMPLES);
+        return Math.max(minimum, TimeUnit.MICROSECONDS.toMillis(p95));
+    }
+
+    private static long retryAfterMillis(HttpResponse<InputStream> response) {
+        String value = response.headers().firstValue("Retry-After").orElse(null);
+        if (value != null) {
+            try {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim()));
+            } catch (NumberFormatException e) {
+                // HTTP-Datum wird nicht ausgewertet, es gilt die normale Pause
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isConnectFailure(Throwable error) {
+        return error instanceof ConnectException || error instanceof HttpConnectTimeoutException;
+    }
+
+    private static void discard(HttpResponse<InputStream> response) {
+        try {
+            response.body().close();
+        } catch (IOException e) {
+            // Verworfene Antwort, nichts weiter zu tun
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * Waits for the outcome of a request and rethrows its failure.
+     *
+     * @param future The future response.
+     * @param uri    The target of the request, for the message on interruption.
+     * @return The response.
+     * @throws IOException The failure of the request.
+     */
+    static <T> T await(CompletableFuture<T> future, URI uri) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new InterruptedIOException("Request to " + uri + " was interrupted.");
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * One request with its policy.
+     */
+    private final class Call {
+        private final HttpRequest request;
+        private final HttpRequest.Builder builder;
+        private final RequestSender.Async next;
+        private final HostPolicy policy;
+        private final HttpMetrics metrics;
+        private final String host;
+        private final Circuit circuit;
+        private final RateLimiter limiter;
+        private final boolean idempotent;
+        private final boolean hedge;
+
+        private Call(HttpRequest request, HttpRequest.Builder builder, RequestSender.Async next, HostPolicy policy, HttpMetrics metrics) {
+            this.request = request;
+            this.builder = builder;
+            this.next = next;
+            this.policy = policy;
+            this.metrics = metrics;
+            this.host = request.uri().getHost();
+            this.circuit = HostGuard.this.circuits.computeIfAbsent(this.host, key -> new Circuit());
+            this.limiter = HostGuard.this.limiter(this.host, policy);
+            String method = request.method();
+            this.idempotent = HttpHandler.GET.equals(method) || HttpHandler.PUT.equals(method) || HttpHandler.DELETE.equals(method);
+            this.hedge = policy.isHedging() && HttpHandler.GET.equals(method);
+        }
+    }
+
+    /**
+     * The circuit of one host.
+     */
+    private static final class Circuit {
+        private final AtomicReference<HostPolicy.CircuitState> state = new AtomicReference<>(HostPolicy.CircuitState.CLOSED);
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile long openUntil;
+
+        /**
+         * Asks to send a request.
+         *
+         * @return -1 if the request may be sent, otherwise the milliseconds until the next trial.
+         */
+        private long acquire(HostPolicy policy) {
+            if (policy.getFailureThreshold() == 0) {
+                return -1;
+            }
+            switch (this.state.get()) {
+                case CLOSED:
+                    return -1;
+                case OPEN:
+                    long remaining = remainingMillis();
+                    if (remaining == 0 && this.state.compareAndSet(HostPolicy.CircuitState.OPEN, HostPolicy.CircuitState.HALF_OPEN)) {
+                        return -1;
+                    }
+                    return remaining;
+                default:
+                    // Ein Versuch läuft bereits
+                    return 0;
+            }
+        }
+
+        private long remainingMillis() {
+            return Math.max(0, TimeUnit.NANOSECONDS.toMillis(this.openUntil - System.nanoTime()));
+        }
+
+        private void success() {
+            this.failures.set(0);
+            if (this.state.get() != HostPolicy.CircuitState.CLOSED) {
+                this.state.set(HostPolicy.CircuitState.CLOSED);
+            }
+        }
+
+        /**
+         * Ends a trial whose outcome says nothing about the host. The circuit stays open and
+         * the next request after the open duration is a new trial.
+         */
+        private void release() {
+            this.state.compareAndSet(HostPolicy.CircuitState.HALF_OPEN, HostPolicy.CircuitState.OPEN);
+        }
+
+        private void failure(HostPolicy policy) {
+            int threshold = policy.getFailureThreshold();
+            if (threshold == 0) {
+                return;
+            }
+            if (this.state.get() == HostPolicy.CircuitState.HALF_OPEN || this.failures.incrementAndGet() >= threshold) {
+                this.openUntil = System.nanoTime() + policy.getOpenDuration().toNanos();
+                this.failures.set(0);
+                this.state.set(HostPolicy.CircuitState.OPEN);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,276 @@
+package util;
+
+import java.time.Duration;
+
+/**
+ * How {@link HttpHandler} deals with a slow or failing host.
+ * <p>
+ * A policy combines four mechanisms, each of which can be switched off:
+ * </p>
+ * <ul>
+ * <li><b>Retries</b>: requests that fail with an I/O error or with 502, 503, 504 or 429
+ * are sent again after a randomized, exponentially growing pause. Only idempotent
+ * methods (GET, PUT, DELETE) are retried, and POST only if the connection could not be
+ * established, i.e. the server never saw the request.</li>
+ * <li><b>Hedging</b>: if a GET has not been answered after the 95th percentile of the
+ * latency of its endpoint (at least the hedge delay), a second identical request is sent
+ * and the first response wins. This cuts the tail latency at the price of a few percent
+ * more requests.</li>
+ * <li><b>Circuit breaker</b>: after a number of consecutive failures the host is considered
+ * down and requests fail immediately with a {@link CircuitOpenException} instead of
+ * waiting for timeouts. After the open duration a single trial request is let through;
+ * its success closes the circuit again.</li>
+ * <li><b>Rate limit</b>: every request sent to the host, including retries and hedged
+ * requests, takes a permit of a {@link RateLimiter}. When the budget is used up, the
+ * request waits or fails, according to the {@link RateLimitMode}. Hedged requests are
+ * only sent if a permit is free.</li>
+ * </ul>
+ *
+ * <pre>
+ * HostPolicy policy = new HostPolicy();
+ * policy.setMaxRetries(3);
+ * policy.setHedging(true);
+ * HttpHandler.setPolicy("192.168.1.20", policy);
+ * </pre>
+ *
+ * <p>
+ * A policy only holds the settings; the state of the circuit and the rate limiter are
+ * kept per host, so one policy can be shared by several hosts or used with
+ * {@link HttpHandler#setDefaultPolicy(HostPolicy)}.
+ * </p>
+ */
+public class HostPolicy {
+    private static final Duration DEFAULT_RETRY_BACKOFF = Duration.ofMillis(100);
+    private static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(2);
+    private static final Duration DEFAULT_HEDGE_DELAY = Duration.ofMillis(50);
+    private static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+
+    /**
+     * The state of the circuit of a host.
+     */
+    public enum CircuitState {
+        /** Requests are sent normally. */
+        CLOSED,
+        /** The host is considered down, requests fail immediately. */
+        OPEN,
+        /** A trial request is in flight, other requests fail immediately. */
+        HALF_OPEN
+    }
+
+    /**
+     * What happens to a request when the rate limit of its host is used up.
+     */
+    public enum RateLimitMode {
+        /** The sending thread waits until the request may be sent. */
+        BLOCK,
+        /** The request fails immediately with a {@link RateLimitException}. */
+        FAIL_FAST,
+        /** The request is sent later without blocking a thread; a blocking caller still waits for the response. */
+        DELAY
+    }
+
+    private volatile int maxRetries = 2;
+    private volatile Duration retryBackoff = DEFAULT_RETRY_BACKOFF;
+    private volatile Duration maxBackoff = DEFAULT_MAX_BACKOFF;
+    private volatile boolean hedging;
+    private volatile Duration hedgeDelay = DEFAULT_HEDGE_DELAY;
+    private volatile int failureThreshold = 5;
+    private volatile Duration openDuration = DEFAULT_OPEN_DURATION;
+    private volatile double rateLimit;
+    private volatile int rateBurst = 1;
+    private volatile RateLimitMode rateLimitMode = RateLimitMode.DELAY;
+
+    /**
+     * Sets how often a failed request is sent again.
+     *
+     * @param retries The number of retries (default 2), 0 to disable retries.
+     * @throws IllegalArgumentException If retries is negative.
+     */
+    public void setMaxRetries(int retries) {
+        if (retries < 0) {
+            throw new IllegalArgumentException("The number of retries cannot be negative.");
+        }
+        this.maxRetries = retries;
+    }
+
+    /**
+     * @return The number of retries.
+     */
+    public int getMaxRetries() {
+        return this.maxRetries;
+    }
+
+    /**
+     * Sets the pause before the first retry. The pause doubles with every retry up to the
+     * maximum backoff and is randomized between zero and that value, so that many clients
+     * do not retry in lockstep.
+     *
+     * @param backoff The base pause (default 100 ms).
+     * @throws NullPointerException     If backoff is null.
+     * @throws IllegalArgumentException If backoff is negative.
+     */
+    public void setRetryBackoff(Duration backoff) {
+        this.retryBackoff = checkDuration(backoff, "backoff");
+    }
+
+    /**
+     * @return The base pause before a retry.
+     */
+    public Duration getRetryBackoff() {
+        return this.retryBackoff;
+    }
+
+    /**
+     * Sets the longest pause between two retries, also the limit for a Retry-After header.
+     *
+     * @param backoff The maximum pause (default 2 seconds).
+     * @throws NullPointerException     If backoff is null.
+     * @throws IllegalArgumentException If backoff is negative.
+     */
+    public void setMaxBackoff(Duration backoff) {
+        this.maxBackoff = checkDuration(backoff, "backoff");
+    }
+
+    /**
+     * @return The longest pause between two retries.
+     */
+    public Duration getMaxBackoff() {
+        return this.maxBackoff;
+    }
+
+    /**
+     * Sets whether slow GET requests are hedged with a second request.
+     *
+     * @param enabled true to hedge (default false).
+     */
+    public void setHedging(boolean enabled) {
+        this.hedging = enabled;
+    }
+
+    /**
+     * @return true if slow GET requests are hedged.
+     */
+    public boolean isHedging() {
+        return this.hedging;
+    }
+
+    /**
+     * Sets the shortest wait before a hedged request. It also applies while there are too
+     * few measured requests to know the 95th percentile of an endpoint.
+     *
+     * @param delay The minimum delay (default 50 ms).
+     * @throws NullPointerException     If delay is null.
+     * @throws IllegalArgumentException If delay is negative.
+     */
+    public void setHedgeDelay(Duration delay) {
+        this.hedgeDelay = checkDuration(delay, "delay");
+    }
+
+    /**
+     * @return The minimum delay before a hedged request.
+     */
+    public Duration getHedgeDelay() {
+        return this.hedgeDelay;
+    }
+
+    /**
+     * Sets after how many consecutive failures the circuit opens.
+     *
+     * @param failures The number of failures (default 5), 0 to disable the circuit breaker.
+     * @throws IllegalArgumentException If failures is negative.
+     */
+    public void setFailureThreshold(int failures) {
+        if (failures < 0) {
+            throw new IllegalArgumentException("The failure threshold cannot be negative.");
+        }
+        this.failureThreshold = failures;
+    }
+
+    /**
+     * @return The number of consecutive failures that open the circuit.
+     */
+    public int getFailureThreshold() {
+        return this.failureThreshold;
+    }
+
+    /**
+     * Sets how long requests fail immediately once the circuit is open.
+     *
+     * @param duration The open duration (default 30 seconds).
+     * @throws NullPointerException     If duration is null.
+     * @throws IllegalArgumentException If duration is negative.
+     */
+    public void setOpenDuration(Duration duration) {
+        this.openDuration = checkDuration(duration, "duration");
+    }
+
+    /**
+     * @return How long the circuit stays open.
+     */
+    public Duration getOpenDuration() {
+        return this.openDuration;
+    }
+
+    /**
+     * Limits the rate of requests to the host.
+     *
+     * @param requestsPerSecond The sustained rate, 0 to disable the rate limit (default).
+     * @param burst             The number of requests that may be sent at once after a pause.
+     * @throws IllegalArgumentException If the rate is negative or the burst is less than 1.
+     */
+    public void setRateLimit(double requestsPerSecond, int burst) {
+        if (!(requestsPerSecond >= 0) || Double.isInfinite(requestsPerSecond)) {
+            throw new IllegalArgumentException("The rate cannot be negative.");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("The burst must be at least 1.");
+        }
+        this.rateBurst = burst;
+        this.rateLimit = requestsPerSecond;
+    }
+
+    /**
+     * @return The sustained rate in requests per second, 0 if there is no rate limit.
+     */
+    public double getRateLimit() {
+        return this.rateLimit;
+    }
+
+    /**
+     * @return The number of requests that may be sent at once.
+     */
+    public int getRateBurst() {
+        return this.rateBurst;
+    }
+
+    /**
+     * Sets what happens to a request when the rate limit is used up.
+     *
+     * @param mode The mode (default {@link RateLimitMode#DELAY}).
+     * @throws NullPointerException If mode is null.
+     */
+    public void setRateLimitMode(RateLimitMode mode) {
+        if (mode == null) {
+            throw new NullPointerException("The mode cannot be null.");
+        }
+        this.rateLimitMode = mode;
+    }
+
+    /**
+     * @return What happens to a request when the rate limit is used up.
+     */
+    public RateLimitMode getRateLimitMode() {
+        return this.rateLimitMode;
+    }
+
+    private static Duration checkDuration(Duration duration, String name) {
+        if (duration == null) {
+            throw new NullPointerException("The " + name + " cannot be null.");
+        }
+        if (duration.isNegative()) {
+            throw new IllegalArgumentException("The " + name + " cannot be negative.");
+        }
+        return duration;
+    }
+
+}
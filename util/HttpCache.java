@@ -0,0 +1,570 @@
+package util;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.net.HttpURLConnection;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * A cache for the responses of GET requests sent by {@link HttpHandler}.
+ * <p>
+ * Only URLs matching a rule are cached, each rule with its own time to live. Within the
+ * time to live a response is served from memory without any network access. Afterwards
+ * the entry is revalidated: the request is sent with {@code If-None-Match} and
+ * {@code If-Modified-Since}, and a {@code 304 Not Modified} answer renews the entry
+ * without transferring the body again. Entries are kept per URL and bearer token, so
+ * different users never see each other's responses.
+ * </p>
+ *
+ * <p>
+ * The memory tier holds at most a fixed number of entries and drops the least recently
+ * used one when full. With {@link #setDirectory(Path)} entries are also written to disk,
+ * where they survive evictions and restarts. Successful POST, PUT and DELETE requests
+ * remove the entries of their URL.
+ * </p>
+ *
+ * <pre>
+ * HttpCache cache = new HttpCache(256);
+ * cache.addRule("https://witzapi\\.de/api/language/", Duration.ofHours(24));
+ * cache.addRule("https://api\\.restful-api\\.dev/objects/.*", Duration.ofMinutes(5));
+ * HttpHandler.setCache(cache);
+ * </pre>
+ */
+public class HttpCache {
+    private static final int DEFAULT_MAX_BODY_SIZE = 1024 * 1024;
+    private static final int FILE_MAGIC = 0x48434531;
+    private static final String FILE_SUFFIX = ".cache";
+
+    private static final String ETAG = "ETag";
+    private static final String LAST_MODIFIED = "Last-Modified";
+    private static final String CACHE_CONTROL = "Cache-Control";
+    private static final String CONTENT_LENGTH = "Content-Length";
+
+    private final List<Rule> rules = new CopyOnWriteArrayList<>();
+    private final LinkedHashMap<String, CachedEntry> entries;
+    private final int maxEntries;
+
+    private volatile int maxBodySize = DEFAULT_MAX_BODY_SIZE;
+    private volatile Path directory;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+
+    /**
+     * Creates a cache without rules, which caches nothing until rules are added.
+     *
+     * @param maxEntries The maximum number of responses kept in memory.
+     * @throws IllegalArgumentException If maxEntries is less than 1.
+     */
+    public HttpCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("The cache must hold at least one entry.");
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedEntry> eldest) {
+                return size() > HttpCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Caches the responses of all URLs matching a regular expression. The first matching
+     * rule applies.
+     *
+     * @param urlPattern A regular expression matching the whole URL.
+     * @param ttl        How long a response is served without revalidation; zero to
+     *                   revalidate on every request.
+     * @throws NullPointerException     If urlPattern or ttl is null.
+     * @throws IllegalArgumentException If the ttl is negative.
+     */
+    public void addRule(String urlPattern, Duration ttl) {
+        if (urlPattern == null) {
+            throw new NullPointerException("The urlPattern cannot be null.");
+        }
+        if (ttl == null) {
+            throw new NullPointerException("The ttl cannot be null.");
+        }
+        if (ttl.isNegative()) {
+            throw new IllegalArgumentException("The ttl cannot be negative.");
+        }
+        this.rules.add(new Rule(Pattern.compile(urlPattern), ttl.toMillis()));
+    }
+
+    /**
+     * Sets the largest response body that is cached. Larger responses are passed through.
+     *
+     * @param bytes The maximum body size in bytes (default 1 MiB).
+     * @throws IllegalArgumentException If bytes is negative.
+     */
+    public void setMaxBodySize(int bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("The size cannot be negative.");
+        }
+        this.maxBodySize = bytes;
+    }
+
+    /**
+     * Gets the largest response body that is cached.
+     *
+     * @return The maximum body size in bytes.
+     */
+    public int getMaxBodySize() {
+        return this.maxBodySize;
+    }
+
+    /**
+     * Enables the disk tier. Entries are written to the directory as they are stored,
+     * and looked up there when they are not in memory.
+     *
+     * @param dir The directory for the cache files, or null to use memory only.
+     * @throws IOException If the directory cannot be created.
+     */
+    public void setDirectory(Path dir) throws IOException {
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        this.directory = dir;
+    }
+
+    /**
+     * Gets the directory of the disk tier.
+     *
+     * @return The directory, or null if only memory is used.
+     */
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    /**
+     * Gets the number of requests answered from the cache without network access.
+     *
+     * @return The number of hits.
+     */
+    public long getHitCount() {
+        return this.hits.get();
+    }
+
+    /**
+     * Gets the number of cacheable requests that had no entry and were sent.
+     *
+     * @return The number of misses.
+     */
+    public long getMissCount() {
+        return this.misses.get();
+    }
+
+    /**
+     * Gets the number of expired entries the server confirmed with 304 Not Modified.
+     *
+     * @return The number of revalidations.
+     */
+    public long getRevalidationCount() {
+        return this.revalidations.get();
+    }
+
+    /**
+     * Removes the entries of a URL for all tokens, in memory and on disk.
+     *
+     * @param url The URL.
+     */
+    public void invalidate(String url) {
+        String prefix = url + "\n";
+        synchronized (this.entries) {
+            this.entries.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+        Path dir = this.directory;
+        if (dir != null) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, hash(url, 20) + "-*" + FILE_SUFFIX)) {
+                for (Path file : files) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException e) {
+                // Nicht löschbare Dateien werden beim nächsten Speichern überschrieben
+            }
+        }
+    }
+
+    /**
+     * Removes all entries, in memory and on disk.
+     */
+    public void clear() {
+        synchronized (this.entries) {
+            this.entries.clear();
+        }
+        Path dir = this.directory;
+        if (dir != null) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + FILE_SUFFIX)) {
+                for (Path file : files) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException e) {
+                // Siehe invalidate
+            }
+        }
+    }
+
+    /**
+     * Sends a request through the cache.
+     *
+     * @param builder The complete request, to which the cache may add conditional headers.
+     * @param next    Sends requests that are not answered from the cache.
+     * @return The response; its body is buffered if it came from or went into the cache.
+     * @throws IOException If the request fails.
+     */
+    HttpResponse<InputStream> send(HttpRequest.Builder builder, RequestSender next) throws IOException {
+        HttpRequest request = builder.build();
+        Lookup lookup = lookup(request, builder);
+        if (lookup == null) {
+            return invalidateOnSuccess(request, next.send(builder));
+        }
+        if (lookup.fresh != null) {
+            return lookup.fresh;
+        }
+        return store(lookup, next.send(lookup.builder));
+    }
+
+    /**
+     * Sends a request through the cache without blocking.
+     *
+     * @param builder The complete request, to which the cache may add conditional headers.
+     * @param next    Sends requests that are not answered from the cache.
+     * @return The future response.
+     */
+    CompletableFuture<HttpResponse<InputStream>> sendAsync(HttpRequest.Builder builder, RequestSender.Async next) {
+        HttpRequest request = builder.build();
+        Lookup lookup = lookup(request, builder);
+        if (lookup == null) {
+            return next.sendAsync(builder).thenApply(response -> invalidateOnSuccess(request, response));
+        }
+        if (lookup.fresh != null) {
+            return CompletableFuture.completedFuture(lookup.fresh);
+        }
+        return next.sendAsync(lookup.builder).thenApply(response -> {
+            try {
+                return store(lookup, response);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Looks up a request.
+     *
+     * @return null if the request is not cacheable, a lookup with a fresh response,
+     *         or a lookup with the request to send, conditional if a stale entry exists.
+     */
+    private Lookup lookup(HttpRequest request, HttpRequest.Builder builder) {
+        if (!HttpHandler.GET.equals(request.method())) {
+            return null;
+        }
+        String url = request.uri().toString();
+        Rule rule = rule(url);
+        if (rule == null) {
+            return null;
+        }
+
+        String key = url + "\n" + request.headers().firstValue("Authorization").orElse("");
+        CachedEntry entry = get(key, url);
+        long now = System.currentTimeMillis();
+        if (entry == null) {
+            this.misses.incrementAndGet();
+            return new Lookup(key, url, rule, null, builder, null);
+        }
+        if (now < entry.expires) {
+            this.hits.incrementAndGet();
+            return new Lookup(key, url, rule, entry, builder, entry.toResponse(request));
+        }
+        if (entry.etag == null && entry.lastModified == null) {
+            this.misses.incrementAndGet();
+            return new Lookup(key, url, rule, null, builder, null);
+        }
+
+        // Abgelaufen: beim Server nachfragen, ob sich etwas geändert hat
+        HttpRequest.Builder conditional = builder.copy();
+        if (entry.etag != null) {
+            conditional.header("If-None-Match", entry.etag);
+        }
+        if (entry.lastModified != null) {
+            conditional.header("If-Modified-Since", entry.lastModified);
+        }
+        return new Lookup(key, url, rule, entry, conditional, null);
+    }
+
+    private Rule rule(String url) {
+        for (Rule rule : this.rules) {
+            if (rule.pattern.matcher(url).matches()) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stores a response if possible and returns the response to hand to the caller.
+     */
+    private HttpResponse<InputStream> store(Lookup lookup, HttpResponse<InputStream> response) throws IOException {
+        long expires = System.currentTimeMillis() + lookup.rule.ttl;
+        int code = response.statusCode();
+        if (code == HttpURLConnection.HTTP_NOT_MODIFIED && lookup.stale != null) {
+            response.body().close();
+            this.revalidations.incrementAndGet();
+            CachedEntry renewed = lookup.stale.renew(response.headers(), expires);
+            put(lookup.key, lookup.url, renewed);
+            return renewed.toResponse(response.request());
+        }
+        if (code != HttpURLConnection.HTTP_OK || noStore(response.headers())) {
+            return response;
+        }
+
+        int limit = this.maxBodySize;
+        long length = response.headers().firstValueAsLong(CONTENT_LENGTH).orElse(-1L);
+        if (length > limit) {
+            return response;
+        }
+        InputStream in = response.body();
+        byte[] body = in.readNBytes(limit + 1);
+        if (body.length > limit) {
+            // Zu groß für den Cache: gelesenen Anfang und Rest unverändert weitergeben
+            return new BufferedResponse(response.request(), code, response.headers(), response.version(),
+                    new SequenceInputStream(new ByteArrayInputStream(body), in));
+        }
+        in.close();
+
+        CachedEntry entry = new CachedEntry(response.headers(), response.version(), body, expires);
+        put(lookup.key, lookup.url, entry);
+        return entry.toResponse(response.request());
+    }
+
+    private HttpResponse<InputStream> invalidateOnSuccess(HttpRequest request, HttpResponse<InputStream> response) {
+        String method = request.method();
+        if (!HttpHandler.GET.equals(method) && !"HEAD".equals(method) && response.statusCode() < HttpURLConnection.HTTP_BAD_REQUEST) {
+            invalidate(request.uri().toString());
+        }
+        return response;
+    }
+
+    private static boolean noStore(HttpHeaders headers) {
+        for (String value : headers.allValues(CACHE_CONTROL)) {
+            if (value.toLowerCase().contains("no-store")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private CachedEntry get(String key, String url) {
+        synchronized (this.entries) {
+            CachedEntry entry = this.entries.get(key);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        Path dir = this.directory;
+        if (dir == null) {
+            return null;
+        }
+        CachedEntry entry = read(file(dir, key, url), url);
+        if (entry != null) {
+            synchronized (this.entries) {
+                this.entries.put(key, entry);
+            }
+        }
+        return entry;
+    }
+
+    private void put(String key, String url, CachedEntry entry) {
+        synchronized (this.entries) {
+            this.entries.put(key, entry);
+        }
+        Path dir = this.directory;
+        if (dir != null) {
+            write(file(dir, key, url), url, entry);
+        }
+    }
+
+    private static Path file(Path dir, String key, String url) {
+        // Nach URL gruppiert, damit invalidate alle Tokens einer URL findet
+        return dir.resolve(hash(url, 20) + "-" + hash(key, 8) + FILE_SUFFIX);
+    }
+
+    /**
+     * Reads an entry from disk.
+     *
+     * @return The entry, or null if there is no readable entry for the URL.
+     */
+    private static CachedEntry read(Path file, String url) {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            if (in.readInt() != FILE_MAGIC || !in.readUTF().equals(url)) {
+                return null;
+            }
+            long expires = in.readLong();
+            HttpClient.Version version = HttpClient.Version.valueOf(in.readUTF());
+            Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (int i = in.readInt(); i > 0; i--) {
+                String name = in.readUTF();
+                String[] values = new String[in.readInt()];
+                for (int j = 0; j < values.length; j++) {
+                    values[j] = in.readUTF();
+                }
+                headers.put(name, List.of(values));
+            }
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new CachedEntry(HttpHeaders.of(headers, (name, value) -> true), version, body, expires);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | IllegalArgumentException e) {
+            // Beschädigte oder fremde Datei wie einen Fehltreffer behandeln
+            return null;
+        }
+    }
+
+    /**
+     * Writes an entry to disk, replacing the previous file atomically.
+     */
+    private static void write(Path file, String url, CachedEntry entry) {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp" + Thread.currentThread().getId());
+        try {
+            try (OutputStream os = Files.newOutputStream(temp); DataOutputStream out = new DataOutputStream(os)) {
+                out.writeInt(FILE_MAGIC);
+                out.writeUTF(url);
+                out.writeLong(entry.expires);
+                out.writeUTF(entry.version.name());
+                Map<String, List<String>> headers = entry.headers.map();
+                out.writeInt(headers.size());
+                for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                    out.writeUTF(header.getKey());
+                    out.writeInt(header.getValue().size());
+                    for (String value : header.getValue()) {
+                        out.writeUTF(value);
+                    }
+                }
+                out.writeInt(entry.body.length);
+                out.write(entry.body);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Die Plattenstufe ist optional, der Eintrag bleibt im Speicher
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // Nichts weiter zu tun
+            }
+        }
+    }
+
+    private static String hash(String value, int bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(bytes * 2);
+            for (int i = 0; i < bytes; i++) {
+                hex.append(Character.forDigit(digest[i] >> 4 & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    private static final class Rule {
+        private final Pattern pattern;
+        private final long ttl;
+
+        private Rule(Pattern pattern, long ttl) {
+            this.pattern = pattern;
+            this.ttl = ttl;
+        }
+    }
+
+    private static final class Lookup {
+        private final String key;
+        private final String url;
+        private final Rule rule;
+        private final CachedEntry stale;
+        private final HttpRequest.Builder builder;
+        private final HttpResponse<InputStream> fresh;
+
+        private Lookup(String key, String url, Rule rule, CachedEntry stale, HttpRequest.Builder builder, HttpResponse<InputStream> fresh) {
+            this.key = key;
+            this.url = url;
+            this.rule = rule;
+            this.stale = stale;
+            this.builder = builder;
+            this.fresh = fresh;
+        }
+    }
+
+    /**
+     * A cached response. Immutable; renewing creates a new entry.
+     */
+    private static final class CachedEntry {
+        private final HttpHeaders headers;
+        private final HttpClient.Version version;
+        private final byte[] body;
+        private final long expires;
+        private final String etag;
+        private final String lastModified;
+
+        private CachedEntry(HttpHeaders headers, HttpClient.Version version, byte[] body, long expires) {
+            this.headers = headers;
+            this.version = version;
+            this.body = body;
+            this.expires = expires;
+            this.etag = headers.firstValue(ETAG).orElse(null);
+            this.lastModified = headers.firstValue(LAST_MODIFIED).orElse(null);
+        }
+
+        /**
+         * Creates the entry confirmed by a 304 response, taking over its updated headers.
+         */
+        private CachedEntry renew(HttpHeaders update, long newExpires) {
+            Map<String, List<String>> merged = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            merged.putAll(this.headers.map());
+            for (Map.Entry<String, List<String>> header : update.map().entrySet()) {
+                String name = header.getKey();
+                if (name.equalsIgnoreCase(ETAG) || name.equalsIgnoreCase(LAST_MODIFIED) || name.equalsIgnoreCase(CACHE_CONTROL)) {
+                    merged.put(name, header.getValue());
+                }
+            }
+            return new CachedEntry(HttpHeaders.of(merged, (name, value) -> true), this.version, this.body, newExpires);
+        }
+
+        private HttpResponse<InputStream> toResponse(HttpRequest request) {
+            return new BufferedResponse(request, HttpURLConnection.HTTP_OK, this.headers, this.version,
+                    new ByteArrayInputStream(this.body));
+        }
+    }
+
+}
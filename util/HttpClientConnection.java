@@ -0,0 +1,219 @@
+package util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ProtocolException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An {@link HttpURLConnection} that sends its request through a shared {@link HttpClient}.
+ * <p>
+ * The connection collects the request method, headers and body like a regular
+ * {@code HttpURLConnection} and sends the request on the first access to the response.
+ * The TCP (and TLS) connection belongs to the pool of the client, so
+ * {@link #disconnect()} only releases the response and leaves the pooled connection
+ * open for the next request to the same host. On its way to the client the request
+ * passes the stages of a {@link RequestPipeline}.
+ * </p>
+ */
+class HttpClientConnection extends HttpURLConnection {
+    // Header, die der HttpClient selbst setzt und nicht annimmt
+    private static final Set<String> RESTRICTED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        Collections.addAll(RESTRICTED_HEADERS, "Connection", "Content-Length", "Expect", "Host", "Upgrade");
+    }
+
+    private final RequestPipeline pipeline;
+    private final URI uri;
+    private final Duration timeout;
+
+    private ByteArrayOutputStream body;
+    private HttpResponse<InputStream> response;
+
+    /**
+     * Creates a connection. No request is sent yet.
+     *
+     * @param pipeline The stages sending the request.
+     * @param uri      The target of the request.
+     * @param timeout  The timeout for the whole request, or null for none.
+     * @throws IOException If the URI is not a valid URL.
+     */
+    HttpClientConnection(RequestPipeline pipeline, URI uri, Duration timeout) throws IOException {
+        super(uri.toURL());
+        this.pipeline = pipeline;
+        this.uri = uri;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void connect() {
+        this.connected = true;
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        if (!getDoOutput()) {
+            throw new ProtocolException("cannot write to a URLConnection if doOutput=false - call setDoOutput(true)");
+        }
+        if (this.response != null) {
+            throw new ProtocolException("Cannot write output after reading input.");
+        }
+        if (this.body == null) {
+            this.body = new ByteArrayOutputStream();
+        }
+        return this.body;
+    }
+
+    /**
+     * Sends the request once and keeps the response.
+     *
+     * @return The response with the unread body.
+     * @throws IOException If the request fails or times out.
+     */
+    private HttpResponse<InputStream> execute() throws IOException {
+        if (this.response == null) {
+            HttpRequest.Builder request = toRequest();
+            connect();
+            this.response = this.pipeline.send(request, this.uri, this.method, bodySize());
+            this.responseCode = this.response.statusCode();
+        }
+        return this.response;
+    }
+
+    /**
+     * Sends the request without blocking. The connection itself is not used afterwards.
+     *
+     * @return The future response with the unread body.
+     */
+    CompletableFuture<HttpResponse<InputStream>> sendAsync() {
+        HttpRequest.Builder request = toRequest();
+        connect();
+        return this.pipeline.sendAsync(request, this.uri, this.method, bodySize());
+    }
+
+    private long bodySize() {
+        return this.body != null ? this.body.size() : 0;
+    }
+
+    private HttpRequest.Builder toRequest() {
+        HttpRequest.BodyPublisher publisher = this.body != null
+                ? HttpRequest.BodyPublishers.ofByteArray(this.body.toByteArray())
+                : HttpRequest.BodyPublishers.noBody();
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(this.uri).method(this.method, publisher);
+        if (this.timeout != null) {
+            builder.timeout(this.timeout);
+        }
+        for (Map.Entry<String, List<String>> header : getRequestProperties().entrySet()) {
+            if (header.getKey() != null && !RESTRICTED_HEADERS.contains(header.getKey())) {
+                for (String value : header.getValue()) {
+                    builder.header(header.getKey(), value);
+                }
+            }
+        }
+        return builder;
+    }
+
+    @Override
+    public int getResponseCode() throws IOException {
+        return execute().statusCode();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        HttpResponse<InputStream> resp = execute();
+        int code = resp.statusCode();
+        if (code == HTTP_NOT_FOUND || code == HTTP_GONE) {
+            throw new FileNotFoundException(this.url.toString());
+        }
+        if (code >= HTTP_BAD_REQUEST) {
+            throw new IOException("Server returned HTTP response code: " + code + " for URL: " + this.url);
+        }
+        return resp.body();
+    }
+
+    @Override
+    public InputStream getErrorStream() {
+        if (this.response != null && this.response.statusCode() >= HTTP_BAD_REQUEST) {
+            return this.response.body();
+        }
+        return null;
+    }
+
+    @Override
+    public String getHeaderField(String name) {
+        return this.response != null ? this.response.headers().firstValue(name).orElse(null) : null;
+    }
+
+    @Override
+    public Map<String, List<String>> getHeaderFields() {
+        return this.response != null ? this.response.headers().map() : Collections.emptyMap();
+    }
+
+    @Override
+    public String getHeaderFieldKey(int n) {
+        List<String[]> fields = headerList();
+        return n >= 0 && n < fields.size() ? fields.get(n)[0] : null;
+    }
+
+    @Override
+    public String getHeaderField(int n) {
+        List<String[]> fields = headerList();
+        return n >= 0 && n < fields.size() ? fields.get(n)[1] : null;
+    }
+
+    private List<String[]> headerList() {
+        List<String[]> fields = new ArrayList<>();
+        for (Map.Entry<String, List<String>> header : getHeaderFields().entrySet()) {
+            for (String value : header.getValue()) {
+                fields.add(new String[] { header.getKey(), value });
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Gets the HTTP version the response was received with.
+     *
+     * @return The version, or null if the request has not been sent.
+     */
+    HttpClient.Version getVersion() {
+        return this.response != null ? this.response.version() : null;
+    }
+
+    /**
+     * Releases the response. The underlying connection stays in the pool of the client.
+     */
+    @Override
+    public void disconnect() {
+        if (this.response != null) {
+            try {
+                this.response.body().close();
+            } catch (IOException e) {
+                // Bereits geschlossen oder abgebrochen, nichts freizugeben
+            }
+        }
+    }
+
+    @Override
+    public boolean usingProxy() {
+        return false;
+    }
+
+}
@@ -2,14 +2,21 @@ package util;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
 import org.json.simple.parser.ParseException;
 
 /**
@@ -24,6 +31,58 @@ import org.json.simple.parser.ParseException;
  * The class also includes methods for validating JSON request bodies and 
  * retrieving responses from HTTP connections. 
  * </p>
+ *
+ * <p>
+ * All requests go through one shared {@link HttpClient}, which keeps connections to each
+ * host alive and reuses them, and negotiates HTTP/2 where the server supports it. The
+ * connections returned by {@link #createConnection(String, String, String, String)} are
+ * lightweight views on that client; {@link HttpURLConnection#disconnect()} does not close
+ * the pooled connection. Timeouts and the HTTP version are configured with the static
+ * setters, which take effect for all following requests.
+ * </p>
+ *
+ * <p>
+ * {@link #sendAsync(String, String, String, String)} and its JSON variants send a request
+ * without blocking the calling thread. Many requests can be in flight at the same time;
+ * the client receives each body in full without holding a thread, and only the parsing
+ * runs on its executor.
+ * </p>
+ *
+ * <p>
+ * The methods taking a {@link ResponseConsumer} hand the raw response stream to the
+ * consumer, e.g. a JSON parser or a file, without building a string or trimming lines.
+ * </p>
+ *
+ * <p>
+ * Request bodies are checked according to the {@link Validation} mode, by default with
+ * an allocation-free structural check. Bodies built with {@link JsonWriter} are valid by
+ * construction and can be sent with {@link Validation#OFF}.
+ * </p>
+ *
+ * <p>
+ * GET responses of selected URLs can be cached with {@link #setCache(HttpCache)}, which
+ * answers repeated requests locally and revalidates expired entries with the server.
+ * Identical GET requests issued while one of them is still in flight are sent once and
+ * share its response, see {@link #setCoalescing(boolean)}.
+ * </p>
+ *
+ * <p>
+ * Every request is measured per endpoint, see {@link #getMetrics()}. Slow or failing hosts
+ * can be given a {@link HostPolicy} with retries, hedged requests, a circuit breaker and a
+ * rate limit, see {@link #setPolicy(String, HostPolicy)}.
+ * </p>
+ * 
+ * <p>
+ * Responses are requested with gzip or deflate compression and decompressed while they
+ * are read, see {@link #setResponseCompression(boolean)}. Large request bodies can be sent
+ * compressed as well, see {@link #setRequestCompression(int)}.
+ * </p>
+ * 
+ * <p>
+ * The requests are delivered by an {@link HttpTransport}. Besides the network, requests
+ * can be answered from recorded responses or by a local stub server, see
+ * {@link #setTransport(HttpTransport)}.
+ * </p>
  * 
  * @author Florian Kaufmann
  * @version 1.0
@@ -42,6 +101,307 @@ public class HttpHandler {
     public static final String PUT = "PUT";
     public static final String DELETE = "DELETE";
 
+    /**
+     * How request bodies are checked before they are sent.
+     */
+    public enum Validation {
+        /** No check, for bodies that are valid by construction, e.g. from {@link JsonWriter}. */
+        OFF,
+        /** A single pass over the characters without allocation, see {@link JsonParser#checkStructure(String)}. */
+        STRUCTURAL,
+        /** A full parse with json-simple, see {@link JsonParser#validate(String)}. */
+        FULL
+    }
+
+    private static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private static Duration connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    private static Duration requestTimeout = DEFAULT_REQUEST_TIMEOUT;
+    private static HttpClient.Version version = HttpClient.Version.HTTP_2;
+    private static HttpClient client;
+    private static volatile HttpCache cache;
+    private static final HttpTransport NETWORK = new NetworkTransport();
+    private static volatile HttpTransport transport = NETWORK;
+    private static final RequestCoalescer COALESCER = new RequestCoalescer();
+    private static final HttpMetrics METRICS = new HttpMetrics();
+    private static final HostGuard GUARD = new HostGuard();
+    private static volatile boolean coalescing = true;
+    private static volatile boolean responseCompression = true;
+    private static volatile int requestCompression = -1;
+    private static volatile Validation validation = Validation.STRUCTURAL;
+
+    /**
+     * Sets how request bodies are checked when no mode is given per request.
+     *
+     * @param mode The validation mode (default STRUCTURAL).
+     * @throws NullPointerException If the mode is null.
+     */
+    public static void setValidation(Validation mode) {
+        if (mode == null) {
+            throw new NullPointerException("The mode cannot be null.");
+        }
+        validation = mode;
+    }
+
+    /**
+     * Gets how request bodies are checked when no mode is given per request.
+     *
+     * @return The validation mode.
+     */
+    public static Validation getValidation() {
+        return validation;
+    }
+
+    /**
+     * Sets the cache for GET responses. Without a cache every request is sent.
+     *
+     * @param httpCache The cache for all following requests, or null to disable caching.
+     */
+    public static void setCache(HttpCache httpCache) {
+        cache = httpCache;
+    }
+
+    /**
+     * Gets the cache for GET responses.
+     *
+     * @return The cache, or null if caching is disabled.
+     */
+    public static HttpCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Sets whether identical GET requests in flight at the same time are sent only once.
+     * Callers asking for the same URL with the same token while a request is pending then
+     * receive a copy of its response. The body is only buffered if another caller is
+     * actually waiting; a request nobody else asks for is streamed as usual.
+     *
+     * @param enabled true to share identical GET requests (default), false to send each one.
+     */
+    public static void setCoalescing(boolean enabled) {
+        coalescing = enabled;
+    }
+
+    /**
+     * Gets whether identical GET requests in flight at the same time are sent only once.
+     *
+     * @return true if identical GET requests are shared.
+     */
+    public static boolean isCoalescing() {
+        return coalescing;
+    }
+
+    /**
+     * Sets whether responses may be compressed. The server is then offered gzip and deflate,
+     * and compressed responses are decompressed while they are read.
+     *
+     * @param enabled true to accept compressed responses (default), false to request them uncompressed.
+     */
+    public static void setResponseCompression(boolean enabled) {
+        responseCompression = enabled;
+    }
+
+    /**
+     * Gets whether responses may be compressed.
+     *
+     * @return true if gzip and deflate responses are accepted.
+     */
+    public static boolean isResponseCompression() {
+        return responseCompression;
+    }
+
+    /**
+     * Sets the size from which request bodies are sent compressed with gzip. Only enable
+     * this for servers that accept {@code Content-Encoding: gzip} on requests.
+     *
+     * @param minBytes The minimum body size in bytes, or a negative value to never compress (default).
+     */
+    public static void setRequestCompression(int minBytes) {
+        requestCompression = minBytes;
+    }
+
+    /**
+     * Gets the size from which request bodies are sent compressed with gzip.
+     *
+     * @return The minimum body size in bytes, or a negative value if request bodies are never compressed.
+     */
+    public static int getRequestCompression() {
+        return requestCompression;
+    }
+
+    /**
+     * Gets the latency, size and status metrics of all requests, per endpoint.
+     *
+     * @return The metrics.
+     */
+    public static HttpMetrics getMetrics() {
+        return METRICS;
+    }
+
+    /**
+     * Sets the retry, hedging and circuit breaker policy for a host.
+     *
+     * @param host   The host name as it appears in the URLs, without port.
+     * @param policy The policy, or null to use the default policy for the host again.
+     * @throws NullPointerException If the host is null.
+     */
+    public static void setPolicy(String host, HostPolicy policy) {
+        GUARD.setPolicy(host, policy);
+    }
+
+    /**
+     * Gets the policy that applies to a host.
+     *
+     * @param host The host name.
+     * @return The policy of the host, else the default policy, or null if requests to the
+     *         host are sent once without any failure handling.
+     */
+    public static HostPolicy getPolicy(String host) {
+        return GUARD.getPolicy(host);
+    }
+
+    /**
+     * Sets the policy for all hosts without their own policy.
+     *
+     * @param policy The default policy, or null for none (default).
+     */
+    public static void setDefaultPolicy(HostPolicy policy) {
+        GUARD.setDefaultPolicy(policy);
+    }
+
+    /**
+     * Gets the policy for all hosts without their own policy.
+     *
+     * @return The default policy, or null for none.
+     */
+    public static HostPolicy getDefaultPolicy() {
+        return GUARD.getDefaultPolicy();
+    }
+
+    /**
+     * Gets the state of the circuit of a host.
+     *
+     * @param host The host name.
+     * @return The state, CLOSED for hosts without failures.
+     */
+    public static HostPolicy.CircuitState getCircuitState(String host) {
+        return GUARD.getCircuitState(host);
+    }
+
+    /**
+     * Replaces the transport that delivers the requests, e.g. with a {@link ReplayTransport}
+     * or a {@link LocalServerTransport} to run the classes in {@code api} without the
+     * remote systems.
+     *
+     * @param httpTransport The transport for all following requests, or null to send them
+     *                      to the network again.
+     */
+    public static void setTransport(HttpTransport httpTransport) {
+        transport = httpTransport != null ? httpTransport : NETWORK;
+    }
+
+    /**
+     * Gets the transport that delivers the requests.
+     *
+     * @return The transport; a {@link NetworkTransport} with the shared client by default.
+     */
+    public static HttpTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Gets the shared client, creating it on first use.
+     *
+     * @return The client used for all requests.
+     */
+    public static synchronized HttpClient getClient() {
+        if (client == null) {
+            client = HttpClient.newBuilder()
+                    .connectTimeout(connectTimeout)
+                    .version(version)
+                    .followRedirects(HttpClient.Redirect.NORMAL)
+                    .build();
+        }
+        return client;
+    }
+
+    /**
+     * Replaces the shared client, e.g. to use a custom executor, proxy or SSL context.
+     * The connect timeout and version of this class are not applied to such a client.
+     *
+     * @param httpClient The client to use for all following requests, or null to build
+     *                   the default client again.
+     */
+    public static synchronized void setClient(HttpClient httpClient) {
+        client = httpClient;
+    }
+
+    /**
+     * Sets the timeout for establishing a connection. Rebuilds the shared client.
+     *
+     * @param timeout The connect timeout (default 10 seconds).
+     * @throws NullPointerException If the timeout is null.
+     */
+    public static synchronized void setConnectTimeout(Duration timeout) {
+        if (timeout == null) {
+            throw new NullPointerException("The timeout cannot be null.");
+        }
+        connectTimeout = timeout;
+        client = null;
+    }
+
+    /**
+     * Gets the timeout for establishing a connection.
+     *
+     * @return The connect timeout.
+     */
+    public static synchronized Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Sets the timeout for a whole request, from sending it until the response headers arrive.
+     *
+     * @param timeout The request timeout (default 30 seconds), or null for no timeout.
+     */
+    public static synchronized void setRequestTimeout(Duration timeout) {
+        requestTimeout = timeout;
+    }
+
+    /**
+     * Gets the timeout for a whole request.
+     *
+     * @return The request timeout, or null if requests do not time out.
+     */
+    public static synchronized Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    /**
+     * Sets the preferred HTTP version. With HTTP_2 the client falls back to HTTP/1.1 for
+     * servers without HTTP/2 support. Rebuilds the shared client.
+     *
+     * @param httpVersion The HTTP version (default HTTP_2).
+     * @throws NullPointerException If the version is null.
+     */
+    public static synchronized void setVersion(HttpClient.Version httpVersion) {
+        if (httpVersion == null) {
+            throw new NullPointerException("The version cannot be null.");
+        }
+        version = httpVersion;
+        client = null;
+    }
+
+    /**
+     * Gets the preferred HTTP version.
+     *
+     * @return The HTTP version.
+     */
+    public static synchronized HttpClient.Version getVersion() {
+        return version;
+    }
+
     /**
      * Creates an HTTP connection to the specified URL with the given HTTP method.
      * Optionally sends a JSON request body if provided, and includes an authorization token if specified.
@@ -56,7 +416,25 @@ public class HttpHandler {
      * @throws ParseException     If the request body is not a valid JSON string.
      */
     public static HttpURLConnection createConnection(String urlString, String method, String token, String requestBody) throws IOException, URISyntaxException, ParseException {
-        validateInputs(urlString, method, requestBody);
+        return createConnection(urlString, method, token, requestBody, getValidation());
+    }
+
+    /**
+     * Creates an HTTP connection like {@link #createConnection(String, String, String, String)},
+     * checking the request body with the given mode.
+     * 
+     * @param urlString   The URL to connect to.
+     * @param method      The HTTP method to use for the connection (e.g., GET, POST).
+     * @param token       The bearer token to include in the Authorization header. Can be null if no token is needed.
+     * @param requestBody The JSON object to send in the request body. Can be null if no body is needed.
+     * @param mode        How the request body is checked, e.g. OFF for a body from {@link JsonWriter}.
+     * @return            The initialized HttpURLConnection object.
+     * @throws URISyntaxException If the given URL string cannot be parsed as a URI.
+     * @throws IOException        If an I/O exception occurs while creating or configuring the connection.
+     * @throws ParseException     If the request body is not a valid JSON string.
+     */
+    public static HttpURLConnection createConnection(String urlString, String method, String token, String requestBody, Validation mode) throws IOException, URISyntaxException, ParseException {
+        validateInputs(urlString, method, requestBody, mode);
 
         HttpURLConnection conn = initializeConnection(urlString, method);
         setRequestProperties(conn, token, requestBody);
@@ -64,17 +442,198 @@ public class HttpHandler {
         return conn;
     }
 
+    /**
+     * Sends a request without blocking and returns the response body.
+     * The body is processed like {@link #getResponse(HttpURLConnection)} does.
+     *
+     * @param method      The HTTP method (GET, POST, PUT or DELETE).
+     * @param urlString   The URL to send the request to.
+     * @param token       The bearer token, or null if no token is needed.
+     * @param requestBody The JSON request body, or null if no body is needed.
+     * @return A future with the response string, "" for 204 No Content. It completes
+     *         exceptionally with an IOException if the request fails or the response
+     *         code indicates an error, or with the exception of the input validation.
+     */
+    public static CompletableFuture<String> sendAsync(String method, String urlString, String token, String requestBody) {
+        return sendAsync(method, urlString, token, requestBody, getValidation());
+    }
+
+    /**
+     * Sends a request without blocking like {@link #sendAsync(String, String, String, String)},
+     * checking the request body with the given mode.
+     *
+     * @param method      The HTTP method (GET, POST, PUT or DELETE).
+     * @param urlString   The URL to send the request to.
+     * @param token       The bearer token, or null if no token is needed.
+     * @param requestBody The JSON request body, or null if no body is needed.
+     * @param mode        How the request body is checked, e.g. OFF for a body from {@link JsonWriter}.
+     * @return A future with the response string.
+     */
+    public static CompletableFuture<String> sendAsync(String method, String urlString, String token, String requestBody, Validation mode) {
+        HttpClientConnection conn;
+        try {
+            conn = (HttpClientConnection) createConnection(urlString, method, token, requestBody, mode);
+        } catch (IOException | URISyntaxException | ParseException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return conn.sendAsync().thenApply(HttpHandler::toResponse);
+    }
+
+    /**
+     * Sends a request without blocking and parses the response as JSON object.
+     *
+     * @param method      The HTTP method (GET, POST, PUT or DELETE).
+     * @param urlString   The URL to send the request to.
+     * @param token       The bearer token, or null if no token is needed.
+     * @param requestBody The JSON request body, or null if no body is needed.
+     * @return A future with the parsed object. It completes exceptionally like
+     *         {@link #sendAsync(String, String, String, String)}, or with a ParseException
+     *         if the response is not a JSON object.
+     */
+    public static CompletableFuture<JSONObject> sendAsyncObject(String method, String urlString, String token, String requestBody) {
+        return sendAsyncObject(method, urlString, token, requestBody, getValidation());
+    }
+
+    /**
+     * Sends a request without blocking and parses the response as JSON object,
+     * checking the request body with the given mode.
+     *
+     * @param method      The HTTP method (GET, POST, PUT or DELETE).
+     * @param urlString   The URL to send the request to.
+     * @param token       The bearer token, or null if no token is needed.
+     * @param requestBody The JSON request body, or null if no body is needed.
+     * @param mode        How the request body is checked, e.g. OFF for a body from {@link JsonWriter}.
+     * @return A future with the parsed object.
+     */
+    public static CompletableFuture<JSONObject> sendAsyncObject(String method, String urlString, String token, String requestBody, Validation mode) {
+        return sendAsync(method, urlString, token, requestBody, mode).thenApply(response -> {
+            try {
+                return JsonParser.toObject(response);
+            } catch (ParseException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Sends a request without blocking and parses the response as JSON array.
+     *
+     * @param method      The HTTP method (GET, POST, PUT or DELETE).
+     * @param urlString   The URL to send the request to.
+     * @param token       The bearer token, or null if no token is needed.
+     * @param requestBody The JSON request body, or null if no body is needed.
+     * @return A future with the parsed array. It completes exceptionally like
+     *         {@link #sendAsync(String, String, String, String)}, or with a ParseException
+     *         if the response is not a JSON array.
+     */
+    public static CompletableFuture<JSONArray> sendAsyncArray(String method, String urlString, String token, String requestBody) {
+        return sendAsyncArray(method, urlString, token, requestBody, getValidation());
+    }
+
+    /**
+     * Sends a request without blocking and parses the response as JSON array,
+     * checking the request body with the given mode.
+     *
+     * @param method      The HTTP method (GET, POST, PUT or DELETE).
+     * @param urlString   The URL to send the request to.
+     * @param token       The bearer token, or null if no token is needed.
+     * @param requestBody The JSON request body, or null if no body is needed.
+     * @param mode        How the request body is checked, e.g. OFF for a body from {@link JsonWriter}.
+     * @return A future with the parsed array.
+     */
+    public static CompletableFuture<JSONArray> sendAsyncArray(String method, String urlString, String token, String requestBody, Validation mode) {
+        return sendAsync(method, urlString, token, requestBody, mode).thenApply(response -> {
+            try {
+                return JsonParser.toArray(response);
+            } catch (ParseException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Sends a request without blocking and hands the response stream to a consumer.
+     * The consumer runs on a thread of the shared client once the whole body has arrived,
+     * so it reads from memory and never waits for the network.
+     *
+     * @param <T>         The result of the consumer.
+     * @param method      The HTTP method (GET, POST, PUT or DELETE).
+     * @param urlString   The URL to send the request to.
+     * @param token       The bearer token, or null if no token is needed.
+     * @param requestBody The JSON request body, or null if no body is needed.
+     * @param consumer    The consumer of the response body.
+     * @return A future with the result of the consumer. It completes exceptionally like
+     *         {@link #sendAsync(String, String, String, String)}, or with the exception of the consumer.
+     */
+    public static <T> CompletableFuture<T> sendAsync(String method, String urlString, String token, String requestBody,
+            ResponseConsumer<T> consumer) {
+        return sendAsync(method, urlString, token, requestBody, getValidation(), consumer);
+    }
+
+    /**
+     * Sends a request without blocking and hands the response stream to a consumer,
+     * checking the request body with the given mode.
+     *
+     * @param <T>         The result of the consumer.
+     * @param method      The HTTP method (GET, POST, PUT or DELETE).
+     * @param urlString   The URL to send the request to.
+     * @param token       The bearer token, or null if no token is needed.
+     * @param requestBody The JSON request body, or null if no body is needed.
+     * @param mode        How the request body is checked, e.g. OFF for a body from {@link JsonWriter}.
+     * @param consumer    The consumer of the response body.
+     * @return A future with the result of the consumer.
+     */
+    public static <T> CompletableFuture<T> sendAsync(String method, String urlString, String token, String requestBody,
+            Validation mode, ResponseConsumer<T> consumer) {
+        HttpClientConnection conn;
+        try {
+            conn = (HttpClientConnection) createConnection(urlString, method, token, requestBody, mode);
+        } catch (IOException | URISyntaxException | ParseException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return conn.sendAsync().thenApply(response -> {
+            try (InputStream body = response.body()) {
+                return consume(response.statusCode(), body, consumer);
+            } catch (IOException | ParseException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Checks the status of an asynchronous response and processes its body.
+     *
+     * @param response The response.
+     * @return The response string.
+     * @throws CompletionException With an IOException if the response code indicates an error.
+     */
+    private static String toResponse(HttpResponse<InputStream> response) {
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            int responseCode = response.statusCode();
+            if (responseCode == HttpURLConnection.HTTP_NO_CONTENT) {
+                return "";
+            } else if (responseCode >= 200 && responseCode < 300) {
+                return readFromBufferedReader(br);
+            } else {
+                throw new IOException("HTTP error code: " + responseCode + ", Error response: " + readFromBufferedReader(br));
+            }
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
     /**
      * Validates input parameters for creating an HTTP connection.
      * 
      * @param urlString   The URL to connect to.
      * @param method      The HTTP method to use for the connection.
      * @param requestBody The JSON object to send in the request body, if any.
+     * @param mode        How the request body is checked.
      * @throws ParseException     If the request body is not a valid JSON string.
      * @throws NullPointerException If urlString or method is null.
      * @throws IllegalArgumentException If the method is not supported.
      */
-    private static void validateInputs(String urlString, String method, String requestBody) throws ParseException {
+    private static void validateInputs(String urlString, String method, String requestBody, Validation mode) throws ParseException {
         if (urlString == null) {
             throw new NullPointerException("The urlString cannot be null.");
         }
@@ -85,12 +644,22 @@ public class HttpHandler {
             throw new IllegalArgumentException("The HTTP method is not supported. Use GET, POST, PUT, or DELETE.");
         }
         if (requestBody != null) {
-            JsonParser.validate(requestBody);  // Assuming JsonParserUtil is the class handling JSON validation
+            switch (mode) {
+                case FULL:
+                    JsonParser.validate(requestBody);
+                    break;
+                case STRUCTURAL:
+                    JsonParser.checkStructure(requestBody);
+                    break;
+                default:
+                    break;
+            }
         }
     }
 
     /**
      * Initializes an HTTP connection to the specified URL with the given HTTP method.
+     * The request is sent through the shared client when the response is first accessed.
      * 
      * @param urlString The URL to connect to.
      * @param method    The HTTP method to use for the connection.
@@ -100,10 +669,14 @@ public class HttpHandler {
      */
     private static HttpURLConnection initializeConnection(String urlString, String method) throws IOException, URISyntaxException {
         URI uri = new URI(urlString);
-        URL url = uri.toURL();
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        RequestPipeline pipeline = new RequestPipeline(transport, getCache(), coalescing ? COALESCER : null,
+                METRICS.isEnabled() ? METRICS : null, GUARD);
+        HttpURLConnection conn = new HttpClientConnection(pipeline, uri, getRequestTimeout());
         conn.setRequestMethod(method);
         conn.setRequestProperty(CONTENT_TYPE, CONTENT_TYPE_JSON);
+        if (responseCompression) {
+            conn.setRequestProperty(ContentDecoding.ACCEPT_ENCODING, ContentDecoding.ACCEPTED);
+        }
         return conn;
     }
 
@@ -122,8 +695,13 @@ public class HttpHandler {
 
         if (requestBody != null) {
             conn.setDoOutput(true);
+            byte[] input = requestBody.getBytes(StandardCharsets.UTF_8);
+            int minBytes = requestCompression;
+            if (minBytes >= 0 && input.length >= minBytes) {
+                conn.setRequestProperty(ContentDecoding.CONTENT_ENCODING, ContentDecoding.GZIP);
+                input = ContentDecoding.gzip(input);
+            }
             try (OutputStream os = conn.getOutputStream()) {
-                byte[] input = requestBody.getBytes(StandardCharsets.UTF_8);
                 os.write(input, 0, input.length);
             }
         }
@@ -131,6 +709,7 @@ public class HttpHandler {
 
     /**
      * Retrieves the response from an HTTP connection.
+     * The connection is released afterwards; a pooled connection stays open for reuse.
      * 
      * @param conn The HTTP connection to retrieve the response from.
      * @return The response string.
@@ -153,6 +732,59 @@ public class HttpHandler {
         }
     }
 
+    /**
+     * Retrieves the response from an HTTP connection as a stream and hands it to a consumer.
+     * Unlike {@link #getResponse(HttpURLConnection)}, the body is passed on byte for byte
+     * without building a string, so large responses can be parsed or stored in constant
+     * extra memory. The connection is released afterwards.
+     *
+     * @param <T>      The result of the consumer.
+     * @param conn     The HTTP connection to retrieve the response from.
+     * @param consumer The consumer of the response body; it gets an empty stream for 204 No Content.
+     * @return The result of the consumer.
+     * @throws IOException    If an I/O error occurs or the response code indicates an error.
+     * @throws ParseException If the consumer cannot parse the body.
+     */
+    public static <T> T getResponse(HttpURLConnection conn, ResponseConsumer<T> consumer) throws IOException, ParseException {
+        try {
+            int responseCode = conn.getResponseCode();
+            if (responseCode >= 200 && responseCode < 300 && responseCode != HttpURLConnection.HTTP_NO_CONTENT) {
+                try (InputStream body = conn.getInputStream()) {
+                    return consume(responseCode, body, consumer);
+                }
+            }
+            return consume(responseCode, conn.getErrorStream(), consumer);
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    /**
+     * Checks the response code and hands the body to a consumer.
+     *
+     * @param responseCode The response code.
+     * @param body         The response body; may be null if there is none.
+     * @param consumer     The consumer of the response body.
+     * @return The result of the consumer.
+     * @throws IOException    If the response code indicates an error.
+     * @throws ParseException If the consumer cannot parse the body.
+     */
+    private static <T> T consume(int responseCode, InputStream body, ResponseConsumer<T> consumer) throws IOException, ParseException {
+        if (responseCode == HttpURLConnection.HTTP_NO_CONTENT) {
+            return consumer.consume(InputStream.nullInputStream());
+        } else if (responseCode >= 200 && responseCode < 300) {
+            return consumer.consume(body);
+        } else {
+            String error = "";
+            if (body != null) {
+                try (BufferedReader br = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+                    error = readFromBufferedReader(br);
+                }
+            }
+            throw new IOException("HTTP error code: " + responseCode + ", Error response: " + error);
+        }
+    }
+
     /**
      * Reads the response from the input stream of the HTTP connection.
      * 
@@ -186,7 +818,7 @@ public class HttpHandler {
      * @return The concatenated string of all lines.
      * @throws IOException If an I/O error occurs.
      */
-    private static String readFromBufferedReader(BufferedReader br) throws IOException {
+    static String readFromBufferedReader(BufferedReader br) throws IOException {
         StringBuilder response = new StringBuilder();
         String line;
         while ((line = br.readLine()) != null) {
@@ -0,0 +1,705 @@
+package util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Measures the requests sent by {@link HttpHandler}, per host, method and path template.
+ * <p>
+ * For every endpoint the metrics hold a latency histogram with p50, p99 and p99.9, the
+ * bytes sent and received, the counts per status code and per HTTP version, and the
+ * number of requests that failed without a response. The latency runs from sending the
+ * request until the caller has read or closed the response body, so it includes the
+ * transfer of the body. Recording is lock-free.
+ * </p>
+ *
+ * <p>
+ * Path segments that look like ids, i.e. contain a digit and otherwise only hex digits,
+ * {@code _}, {@code -}, {@code .} or {@code :}, are replaced by {@code {id}}, so
+ * {@code /rest/relay/1} and {@code /rest/relay/2} share the endpoint
+ * {@code /rest/relay/{id}}. The query string is ignored. After {@value #MAX_ENDPOINTS}
+ * endpoints of a host, its further paths are counted under {@code {other}}.
+ * </p>
+ *
+ * <p>
+ * The metrics are read with {@link #snapshot()} or, after {@link #registerMBeans()}, over
+ * JMX as MXBeans named {@value #JMX_DOMAIN}{@code :type=HttpEndpoint,...}.
+ * </p>
+ */
+public class HttpMetrics {
+    public static final int MAX_ENDPOINTS = 1000;
+    public static final String JMX_DOMAIN = "util";
+
+    private static final String OTHER = "{other}";
+    private static final int MAX_STATUS = 600;
+
+    private final ConcurrentHashMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicInteger> endpointsPerHost = new ConcurrentHashMap<>();
+    private volatile boolean enabled = true;
+    private volatile boolean jmx;
+
+    /**
+     * Creates empty metrics. The metrics of {@link HttpHandler} are available with
+     * {@link HttpHandler#getMetrics()}.
+     */
+    HttpMetrics() {
+    }
+
+    /**
+     * Sets whether requests are measured.
+     *
+     * @param enabled true to measure requests (default), false to skip all recording.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Gets whether requests are measured.
+     *
+     * @return true if requests are measured.
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Gets the current values of all endpoints.
+     *
+     * @return The endpoints, sorted by host, path and method.
+     */
+    public List<EndpointSnapshot> snapshot() {
+        List<EndpointSnapshot> list = new ArrayList<>();
+        for (Endpoint endpoint : new TreeMap<>(this.endpoints).values()) {
+            list.add(endpoint.snapshot());
+        }
+        return list;
+    }
+
+    /**
+     * Removes all endpoints and their values.
+     */
+    public void reset() {
+        for (Endpoint endpoint : this.endpoints.values()) {
+            unregister(endpoint);
+        }
+        this.endpoints.clear();
+        this.endpointsPerHost.clear();
+    }
+
+    /**
+     * Registers an MXBean for every endpoint with the platform MBean server, now and for
+     * endpoints seen later.
+     *
+     * @throws JMException If an MXBean cannot be registered.
+     */
+    public synchronized void registerMBeans() throws JMException {
+        this.jmx = true;
+        for (Endpoint endpoint : this.endpoints.values()) {
+            register(endpoint);
+        }
+    }
+
+    /**
+     * Removes the MXBeans of all endpoints from the platform MBean server.
+     */
+    public synchronized void unregisterMBeans() {
+        this.jmx = false;
+        for (Endpoint endpoint : this.endpoints.values()) {
+            unregister(endpoint);
+        }
+    }
+
+    /**
+     * Starts measuring a request.
+     *
+     * @param uri          The target of the request.
+     * @param method       The HTTP method.
+     * @param requestBytes The size of the request body.
+     * @return The measurement, or null if metrics are disabled.
+     */
+    Probe start(URI uri, String method, long requestBytes) {
+        if (!this.enabled) {
+            return null;
+        }
+        return new Probe(endpoint(uri, method), requestBytes, System.nanoTime());
+    }
+
+    /**
+     * Gets the path template of a path, e.g. {@code /rest/relay/{id}} for {@code /rest/relay/1}.
+     *
+     * @param path The path of a URL, may be null or empty.
+     * @return The path template.
+     */
+    static String template(String path) {
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+        StringBuilder template = null;
+        int start = 0;
+        int length = path.length();
+        while (start <= length) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (isId(path, start, end)) {
+                if (template == null) {
+                    template = new StringBuilder(path.length()).append(path, 0, start);
+                }
+                template.append("{id}");
+            } else if (template != null) {
+                template.append(path, start, end);
+            }
+            if (end < length && template != null) {
+                template.append('/');
+            }
+            start = end + 1;
+        }
+        return template != null ? template.toString() : path;
+    }
+
+    private static boolean isId(String path, int start, int end) {
+        boolean digit = false;
+        for (int i = start; i < end; i++) {
+            char ch = path.charAt(i);
+            if (ch >= '0' && ch <= '9') {
+                digit = true;
+            } else if (!(ch >= 'a' && ch <= 'f') && !(ch >= 'A' && ch <= 'F') && ch != '_' && ch != '-' && ch != '.' && ch != ':') {
+                return false;
+            }
+        }
+        return digit;
+    }
+
+    /**
+     * Gets a latency quantile of an endpoint, e.g. to decide when to hedge a request.
+     *
+     * @param uri      A URL of the endpoint.
+     * @param method   The HTTP method.
+     * @param quantile The quantile, e.g. 0.95.
+     * @param minCount The number of requests needed for a meaningful value.
+     * @return The latency in microseconds, or -1 if the endpoint has fewer requests.
+     */
+    long latency(URI uri, String method, double quantile, long minCount) {
+        Endpoint endpoint = this.endpoints.get(host(uri) + " " + template(uri.getRawPath()) + " " + method);
+        if (endpoint == null) {
+            return -1;
+        }
+        long[] buckets = endpoint.latency.buckets();
+        long count = 0;
+        for (long bucket : buckets) {
+            count += bucket;
+        }
+        return count >= minCount ? LatencyHistogram.quantile(buckets, quantile) : -1;
+    }
+
+    private static String host(URI uri) {
+        return uri.getPort() >= 0 ? uri.getHost() + ":" + uri.getPort() : uri.getHost();
+    }
+
+    private Endpoint endpoint(URI uri, String method) {
+        String host = host(uri);
+        String path = template(uri.getRawPath());
+        String key = host + " " + path + " " + method;
+        Endpoint endpoint = this.endpoints.get(key);
+        if (endpoint != null) {
+            return endpoint;
+        }
+        // Platz vor dem Eintragen reservieren, damit parallele Aufrufer das Limit nicht überschreiten
+        AtomicInteger count = this.endpointsPerHost.computeIfAbsent(host, h -> new AtomicInteger());
+        boolean reserved = count.incrementAndGet() <= MAX_ENDPOINTS;
+        if (!reserved) {
+            // Zu viele unterschiedliche Pfade: Rest des Hosts zusammenfassen
+            count.decrementAndGet();
+            path = OTHER;
+            key = host + " " + path + " " + method;
+        }
+        Endpoint created = new Endpoint(host, method, path);
+        endpoint = this.endpoints.putIfAbsent(key, created);
+        if (endpoint != null) {
+            if (reserved) {
+                count.decrementAndGet();
+            }
+            return endpoint;
+        }
+        if (this.jmx) {
+            synchronized (this) {
+                if (this.jmx) {
+                    try {
+                        register(created);
+                    } catch (JMException e) {
+                        // Ohne MXBean bleiben die Werte über snapshot() abrufbar
+                    }
+                }
+            }
+        }
+        return created;
+    }
+
+    private static void register(Endpoint endpoint) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = endpoint.objectName();
+        if (!server.isRegistered(name)) {
+            server.registerMBean(new EndpointBean(endpoint), name);
+        }
+    }
+
+    private static void unregister(Endpoint endpoint) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = endpoint.objectName();
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            // Bereits entfernt
+        }
+    }
+
+    /**
+     * The measurement of one request.
+     */
+    static final class Probe {
+        private final Endpoint endpoint;
+        private final long requestBytes;
+        private final long start;
+
+        private Probe(Endpoint endpoint, long requestBytes, long start) {
+            this.endpoint = endpoint;
+            this.requestBytes = requestBytes;
+            this.start = start;
+        }
+
+        /**
+         * Records a request that failed without a response.
+         */
+        void failed() {
+            this.endpoint.failed(this.requestBytes, System.nanoTime() - this.start);
+        }
+
+        /**
+         * Wraps a response so that the request is recorded once its body is read or closed.
+         *
+         * @param response The response.
+         * @return The response with a measured body.
+         */
+        HttpResponse<InputStream> track(HttpResponse<InputStream> response) {
+            return new BufferedResponse(response.request(), response.statusCode(), response.headers(), response.version(),
+                    new MeteredInputStream(response.body(), this, response.statusCode(), response.version()));
+        }
+    }
+
+    private static final class MeteredInputStream extends FilterInputStream {
+        private final Probe probe;
+        private final int status;
+        private final HttpClient.Version version;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private long bytes;
+
+        private MeteredInputStream(InputStream in, Probe probe, int status, HttpClient.Version version) {
+            super(in);
+            this.probe = probe;
+            this.status = status;
+            this.version = version;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                finish();
+            } else {
+                this.bytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) throws IOException {
+            int n = super.read(buffer, off, len);
+            if (n < 0) {
+                finish();
+            } else {
+                this.bytes += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            this.bytes += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                finish();
+            }
+        }
+
+        private void finish() {
+            if (this.done.compareAndSet(false, true)) {
+                this.probe.endpoint.completed(this.status, this.version, this.probe.requestBytes, this.bytes,
+                        System.nanoTime() - this.probe.start);
+            }
+        }
+    }
+
+    /**
+     * The live values of one endpoint.
+     */
+    private static final class Endpoint {
+        private final String host;
+        private final String method;
+        private final String path;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong requestBytes = new AtomicLong();
+        private final AtomicLong responseBytes = new AtomicLong();
+        private final AtomicLongArray statusCounts = new AtomicLongArray(MAX_STATUS);
+        private final AtomicLongArray versionCounts = new AtomicLongArray(HttpClient.Version.values().length);
+
+        private Endpoint(String host, String method, String path) {
+            this.host = host;
+            this.method = method;
+            this.path = path;
+        }
+
+        private void completed(int status, HttpClient.Version version, long sent, long received, long nanos) {
+            this.latency.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+            this.requestBytes.addAndGet(sent);
+            this.responseBytes.addAndGet(received);
+            if (status >= 0 && status < MAX_STATUS) {
+                this.statusCounts.incrementAndGet(status);
+            }
+            if (version != null) {
+                this.versionCounts.incrementAndGet(version.ordinal());
+            }
+        }
+
+        private void failed(long sent, long nanos) {
+            this.latency.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+            this.requestBytes.addAndGet(sent);
+            this.failures.incrementAndGet();
+        }
+
+        private EndpointSnapshot snapshot() {
+            Map<Integer, Long> statuses = new TreeMap<>();
+            for (int i = 0; i < MAX_STATUS; i++) {
+                long count = this.statusCounts.get(i);
+                if (count > 0) {
+                    statuses.put(i, count);
+                }
+            }
+            Map<String, Long> versions = new TreeMap<>();
+            for (HttpClient.Version version : HttpClient.Version.values()) {
+                long count = this.versionCounts.get(version.ordinal());
+                if (count > 0) {
+                    versions.put(version.name(), count);
+                }
+            }
+            return new EndpointSnapshot(this.host, this.method, this.path, this.latency.buckets(), this.latency.sum(),
+                    this.latency.max(), this.failures.get(), this.requestBytes.get(), this.responseBytes.get(), statuses, versions);
+        }
+
+        private ObjectName objectName() throws JMException {
+            return new ObjectName(JMX_DOMAIN + ":type=HttpEndpoint,host=" + ObjectName.quote(this.host)
+                    + ",path=" + ObjectName.quote(this.path) + ",method=" + this.method);
+        }
+    }
+
+    /**
+     * The values of one endpoint at one point in time.
+     */
+    public static final class EndpointSnapshot {
+        private final String host;
+        private final String method;
+        private final String path;
+        private final long[] buckets;
+        private final long count;
+        private final long latencySum;
+        private final long latencyMax;
+        private final long failures;
+        private final long requestBytes;
+        private final long responseBytes;
+        private final Map<Integer, Long> statusCounts;
+        private final Map<String, Long> versionCounts;
+
+        private EndpointSnapshot(String host, String method, String path, long[] buckets, long latencySum, long latencyMax,
+                long failures, long requestBytes, long responseBytes, Map<Integer, Long> statusCounts, Map<String, Long> versionCounts) {
+            this.host = host;
+            this.method = method;
+            this.path = path;
+            this.buckets = buckets;
+            long total = 0;
+            for (long bucket : buckets) {
+                total += bucket;
+            }
+            this.count = total;
+            this.latencySum = latencySum;
+            this.latencyMax = latencyMax;
+            this.failures = failures;
+            this.requestBytes = requestBytes;
+            this.responseBytes = responseBytes;
+            this.statusCounts = Collections.unmodifiableMap(statusCounts);
+            this.versionCounts = Collections.unmodifiableMap(versionCounts);
+        }
+
+        /**
+         * @return The host, with the port if the URL has one.
+         */
+        public String getHost() {
+            return this.host;
+        }
+
+        /**
+         * @return The HTTP method.
+         */
+        public String getMethod() {
+            return this.method;
+        }
+
+        /**
+         * @return The path template, e.g. {@code /rest/relay/{id}}.
+         */
+        public String getPath() {
+            return this.path;
+        }
+
+        /**
+         * @return The number of requests, including failed ones.
+         */
+        public long getCount() {
+            return this.count;
+        }
+
+        /**
+         * @return The number of requests that failed without a response, e.g. on a timeout.
+         */
+        public long getFailures() {
+            return this.failures;
+        }
+
+        /**
+         * Gets the latency at a quantile.
+         *
+         * @param quantile The quantile between 0 and 1, e.g. 0.99.
+         * @return The latency in microseconds, at most about 6 % above the exact value.
+         */
+        public long getLatency(double quantile) {
+            return LatencyHistogram.quantile(this.buckets, quantile);
+        }
+
+        /**
+         * @return The median latency in microseconds.
+         */
+        public long getLatencyP50() {
+            return getLatency(0.5);
+        }
+
+        /**
+         * @return The 99th percentile of the latency in microseconds.
+         */
+        public long getLatencyP99() {
+            return getLatency(0.99);
+        }
+
+        /**
+         * @return The 99.9th percentile of the latency in microseconds.
+         */
+        public long getLatencyP999() {
+            return getLatency(0.999);
+        }
+
+        /**
+         * @return The mean latency in microseconds.
+         */
+        public double getLatencyMean() {
+            return this.count > 0 ? (double) this.latencySum / this.count : 0;
+        }
+
+        /**
+         * @return The highest latency in microseconds.
+         */
+        public long getLatencyMax() {
+            return this.latencyMax;
+        }
+
+        /**
+         * @return The bytes of all request bodies.
+         */
+        public long getRequestBytes() {
+            return this.requestBytes;
+        }
+
+        /**
+         * @return The bytes of all response bodies read by the callers.
+         */
+        public long getResponseBytes() {
+            return this.responseBytes;
+        }
+
+        /**
+         * @return The number of responses per status code.
+         */
+        public Map<Integer, Long> getStatusCounts() {
+            return this.statusCounts;
+        }
+
+        /**
+         * Gets the number of responses per HTTP version. The shared client reuses its
+         * connections, and with HTTP_2 all requests to a host share one connection; this
+         * mix shows how many requests used the multiplexed protocol.
+         *
+         * @return The number of responses per HTTP version, e.g. {@code HTTP_2}.
+         */
+        public Map<String, Long> getVersionCounts() {
+            return this.versionCounts;
+        }
+
+        @Override
+        public String toString() {
+            return this.method + " " + this.host + this.path + ": count=" + this.count + ", failures=" + this.failures
+                    + ", p50=" + getLatencyP50() + "us, p99=" + getLatencyP99() + "us, p999=" + getLatencyP999()
+                    + "us, max=" + this.latencyMax + "us, sent=" + this.requestBytes + "B, received=" + this.responseBytes
+                    + "B, status=" + this.statusCounts + ", versions=" + this.versionCounts;
+        }
+    }
+
+    /**
+     * The JMX view of one endpoint. All latencies are in microseconds.
+     */
+    public interface EndpointMXBean {
+        String getHost();
+
+        String getMethod();
+
+        String getPath();
+
+        long getCount();
+
+        long getFailures();
+
+        long getLatencyP50();
+
+        long getLatencyP99();
+
+        long getLatencyP999();
+
+        double getLatencyMean();
+
+        long getLatencyMax();
+
+        long getRequestBytes();
+
+        long getResponseBytes();
+
+        Map<Integer, Long> getStatusCounts();
+
+        Map<String, Long> getVersionCounts();
+    }
+
+    private static final class EndpointBean implements EndpointMXBean {
+        private final Endpoint endpoint;
+
+        private EndpointBean(Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public String getHost() {
+            return this.endpoint.host;
+        }
+
+        @Override
+        public String getMethod() {
+            return this.endpoint.method;
+        }
+
+        @Override
+        public String getPath() {
+            return this.endpoint.path;
+        }
+
+        @Override
+        public long getCount() {
+            return this.endpoint.snapshot().getCount();
+        }
+
+        @Override
+        public long getFailures() {
+            return this.endpoint.failures.get();
+        }
+
+        @Override
+        public long getLatencyP50() {
+            return this.endpoint.snapshot().getLatencyP50();
+        }
+
+        @Override
+        public long getLatencyP99() {
+            return this.endpoint.snapshot().getLatencyP99();
+        }
+
+        @Override
+        public long getLatencyP999() {
+            return this.endpoint.snapshot().getLatencyP999();
+        }
+
+        @Override
+        public double getLatencyMean() {
+            return this.endpoint.snapshot().getLatencyMean();
+        }
+
+        @Override
+        public long getLatencyMax() {
+            return this.endpoint.latency.max();
+        }
+
+        @Override
+        public long getRequestBytes() {
+            return this.endpoint.requestBytes.get();
+        }
+
+        @Override
+        public long getResponseBytes() {
+            return this.endpoint.responseBytes.get();
+        }
+
+        @Override
+        public Map<Integer, Long> getStatusCounts() {
+            return this.endpoint.snapshot().getStatusCounts();
+        }
+
+        @Override
+        public Map<String, Long> getVersionCounts() {
+            return this.endpoint.snapshot().getVersionCounts();
+        }
+    }
+
+}
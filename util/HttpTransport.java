@@ -0,0 +1,48 @@
+package util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The last stage of every request of {@link HttpHandler}: it delivers the request and
+ * returns the response.
+ * <p>
+ * By default requests go to the network through the shared client, see
+ * {@link NetworkTransport}. {@link HttpHandler#setTransport(HttpTransport)} replaces it,
+ * e.g. with a {@link ReplayTransport} that answers from recorded responses in memory or
+ * with a {@link LocalServerTransport} that redirects all requests to a stub server on
+ * the loopback interface. All other stages, i.e. metrics, coalescing, caching, host
+ * policies and decompression, stay in place, so the classes in {@code api} can be
+ * load-tested and benchmarked without the remote systems.
+ * </p>
+ *
+ * <p>
+ * Implementations must be thread-safe.
+ * </p>
+ */
+public interface HttpTransport {
+
+    /**
+     * Sends a request, blocking until the response headers have arrived.
+     *
+     * @param request The request.
+     * @return The response with the unread body.
+     * @throws IOException If the request fails.
+     */
+    HttpResponse<InputStream> send(HttpRequest request) throws IOException;
+
+    /**
+     * Sends a request without blocking. The future should only complete once the whole
+     * body has been received, so that reading it in a completion stage does not block a
+     * thread of the client.
+     *
+     * @param request The request.
+     * @return The future response with the unread body. It completes exceptionally with
+     *         an IOException if the request fails.
+     */
+    CompletableFuture<HttpResponse<InputStream>> sendAsync(HttpRequest request);
+
+}
@@ -0,0 +1,27 @@
+package util;
+
+import java.io.IOException;
+
+import org.json.simple.parser.ParseException;
+
+/**
+ * Reads one value from a {@link JsonReader} directly into an object, without building a
+ * {@link org.json.simple.JSONObject} first. Model classes provide a binder as a
+ * constructor taking a reader, e.g. {@code UnipiDeviceRO::new}.
+ *
+ * @param <T> The type of the object.
+ */
+@FunctionalInterface
+public interface JsonBinder<T> {
+
+    /**
+     * Reads the next value.
+     *
+     * @param reader The reader, positioned before the value.
+     * @return The object.
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the value is not well-formed JSON or does not fit the object.
+     */
+    T read(JsonReader reader) throws IOException, ParseException;
+
+}
@@ -0,0 +1,99 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * A fixed table of object member names that {@link JsonReader#nextName(JsonNames)} looks up
+ * directly in its read buffer, without building a string for every name it reads.
+ * <p>
+ * A binder creates its table once and switches on the index of the name:
+ * </p>
+ *
+ * <pre>
+ * private static final JsonNames NAMES = new JsonNames("dev", "circuit", "value");
+ *
+ * reader.beginObject();
+ * while (reader.hasNext()) {
+ *     switch (reader.nextName(NAMES)) {
+ *         case 0: dev = reader.nextString(); break;
+ *         ...
+ *         default: reader.skipValue();
+ *     }
+ * }
+ * reader.endObject();
+ * </pre>
+ *
+ * A table is immutable and can be shared between threads.
+ */
+public final class JsonNames {
+    private final String[] names;
+    private final char[][] chars;
+
+    /**
+     * Creates the table.
+     *
+     * @param names The names; the index of a name in this list is its index in the table.
+     * @throws IllegalArgumentException If a name is listed twice.
+     */
+    public JsonNames(String... names) {
+        this.names = names.clone();
+        this.chars = new char[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] == null) {
+                throw new NullPointerException("The name cannot be null.");
+            }
+            if (indexOf(names[i]) < i) {
+                throw new IllegalArgumentException("The name " + names[i] + " is listed twice.");
+            }
+            this.chars[i] = names[i].toCharArray();
+        }
+    }
+
+    /**
+     * @return The number of names.
+     */
+    public int size() {
+        return this.names.length;
+    }
+
+    /**
+     * Gets a name.
+     *
+     * @param index The index of the name.
+     * @return The name.
+     */
+    public String get(int index) {
+        return this.names[index];
+    }
+
+    /**
+     * Looks up a name.
+     *
+     * @param name The name.
+     * @return The index of the name, or -1 if it is not in the table.
+     */
+    public int indexOf(String name) {
+        for (int i = 0; i < this.names.length; i++) {
+            if (name.equals(this.names[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Looks up a name given as part of a character array.
+     *
+     * @return The index of the name, or -1 if it is not in the table.
+     */
+    int indexOf(char[] buffer, int start, int length) {
+        for (int i = 0; i < this.chars.length; i++) {
+            char[] name = this.chars[i];
+            if (name.length == length && Arrays.equals(name, 0, length, buffer, start, start + length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
@@ -1,5 +1,11 @@
 package util;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
@@ -15,22 +21,59 @@ import org.json.simple.parser.ParseException;
  * or if it does not match the expected JSON type (object or array).
  * </p>
  * 
+ * <p>
+ * All methods are thread-safe and can be called from any number of threads at the same time.
+ * </p>
+ * 
  * @author Florian Kaufmann
  * @version 1.0
  */
 public class JsonParser {
 
-    private static final JSONParser parser = new JSONParser();
+    // JSONParser ist nicht threadsicher; jeder Thread verwendet seinen eigenen wieder
+    private static final ThreadLocal<JSONParser> PARSER = ThreadLocal.withInitial(JSONParser::new);
+
+    // Längere Strings bekommen einen eigenen Parser, damit der Puffer des Lexers nicht wächst
+    private static final int MAX_SHARED_LENGTH = 16 * 1024;
+
+    // Maximale Verschachtelung für die strukturelle Prüfung
+    private static final int MAX_DEPTH = 512;
 
     /**
      * Parses and validates a JSON string.
+     * Strings of up to {@value #MAX_SHARED_LENGTH} characters are parsed with a parser of
+     * the current thread, which it reuses for all its calls, so asynchronous responses are
+     * parsed on several threads in parallel without locking. The parser lets go of the
+     * string afterwards. Longer strings get a parser of their own, so the reused parsers
+     * never grow beyond their initial buffer.
      *
      * @param jsonString The JSON string to parse and validate.
      * @return The parsed Object.
      * @throws ParseException If the string is not a valid JSON structure.
      */
     private static Object parseAndValidate(String jsonString) throws ParseException {
-        return parser.parse(jsonString);
+        if (jsonString.length() > MAX_SHARED_LENGTH) {
+            return new JSONParser().parse(jsonString);
+        }
+        JSONParser parser = PARSER.get();
+        try {
+            return parser.parse(jsonString);
+        } finally {
+            parser.reset(null);
+        }
+    }
+
+    /**
+     * Parses JSON from a reader with a parser of its own. The size of the content is not
+     * known in advance, so the parser is not kept for later calls.
+     *
+     * @param reader The reader to parse.
+     * @return The parsed Object.
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the content is not a valid JSON structure.
+     */
+    private static Object parseAndValidate(Reader reader) throws IOException, ParseException {
+        return new JSONParser().parse(reader);
     }
 
     /**
@@ -43,6 +86,203 @@ public class JsonParser {
         parseAndValidate(jsonString);
     }
 
+    /**
+     * Checks that a string is well-formed JSON without building any objects.
+     * <p>
+     * This is a single pass over the characters that checks the grammar of RFC 8259:
+     * brackets, separators, string escapes, numbers and literals. Nothing is allocated
+     * unless the check fails, so it is much cheaper than {@link #validate(String)}.
+     * Nesting deeper than 512 levels is rejected.
+     * </p>
+     *
+     * @param jsonString The JSON string to check.
+     * @throws ParseException If the string is not well-formed JSON; the position is the
+     *                        index of the offending character.
+     */
+    public static void checkStructure(String jsonString) throws ParseException {
+        int pos = skipWhitespace(jsonString, 0);
+        pos = skipWhitespace(jsonString, checkValue(jsonString, pos, 0));
+        if (pos != jsonString.length()) {
+            throw unexpected(jsonString, pos);
+        }
+    }
+
+    /**
+     * Checks one value starting at pos.
+     *
+     * @return The position after the value.
+     */
+    private static int checkValue(String json, int pos, int depth) throws ParseException {
+        if (pos >= json.length()) {
+            throw unexpected(json, pos);
+        }
+        char c = json.charAt(pos);
+        switch (c) {
+            case '{':
+                return checkObject(json, pos + 1, depth + 1);
+            case '[':
+                return checkArray(json, pos + 1, depth + 1);
+            case '"':
+                return checkString(json, pos + 1);
+            case 't':
+                return checkLiteral(json, pos, "true");
+            case 'f':
+                return checkLiteral(json, pos, "false");
+            case 'n':
+                return checkLiteral(json, pos, "null");
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return checkNumber(json, pos);
+                }
+                throw unexpected(json, pos);
+        }
+    }
+
+    private static int checkObject(String json, int pos, int depth) throws ParseException {
+        if (depth > MAX_DEPTH) {
+            throw new ParseException(pos, ParseException.ERROR_UNEXPECTED_EXCEPTION, "Nesting deeper than " + MAX_DEPTH + " levels.");
+        }
+        pos = skipWhitespace(json, pos);
+        if (pos < json.length() && json.charAt(pos) == '}') {
+            return pos + 1;
+        }
+        while (true) {
+            if (pos >= json.length() || json.charAt(pos) != '"') {
+                throw unexpected(json, pos);
+            }
+            pos = skipWhitespace(json, checkString(json, pos + 1));
+            if (pos >= json.length() || json.charAt(pos) != ':') {
+                throw unexpected(json, pos);
+            }
+            pos = skipWhitespace(json, pos + 1);
+            pos = skipWhitespace(json, checkValue(json, pos, depth));
+            if (pos < json.length() && json.charAt(pos) == ',') {
+                pos = skipWhitespace(json, pos + 1);
+            } else if (pos < json.length() && json.charAt(pos) == '}') {
+                return pos + 1;
+            } else {
+                throw unexpected(json, pos);
+            }
+        }
+    }
+
+    private static int checkArray(String json, int pos, int depth) throws ParseException {
+        if (depth > MAX_DEPTH) {
+            throw new ParseException(pos, ParseException.ERROR_UNEXPECTED_EXCEPTION, "Nesting deeper than " + MAX_DEPTH + " levels.");
+        }
+        pos = skipWhitespace(json, pos);
+        if (pos < json.length() && json.charAt(pos) == ']') {
+            return pos + 1;
+        }
+        while (true) {
+            pos = skipWhitespace(json, checkValue(json, pos, depth));
+            if (pos < json.length() && json.charAt(pos) == ',') {
+                pos = skipWhitespace(json, pos + 1);
+            } else if (pos < json.length() && json.charAt(pos) == ']') {
+                return pos + 1;
+            } else {
+                throw unexpected(json, pos);
+            }
+        }
+    }
+
+    /**
+     * Checks a string whose opening quote is before pos.
+     *
+     * @return The position after the closing quote.
+     */
+    private static int checkString(String json, int pos) throws ParseException {
+        while (pos < json.length()) {
+            char c = json.charAt(pos);
+            if (c == '"') {
+                return pos + 1;
+            } else if (c == '\\') {
+                pos++;
+                if (pos >= json.length()) {
+                    break;
+                }
+                char e = json.charAt(pos);
+                if (e == 'u') {
+                    for (int i = 1; i <= 4; i++) {
+                        if (pos + i >= json.length() || Character.digit(json.charAt(pos + i), 16) < 0) {
+                            throw unexpected(json, pos + i);
+                        }
+                    }
+                    pos += 4;
+                } else if (e != '"' && e != '\\' && e != '/' && e != 'b' && e != 'f' && e != 'n' && e != 'r' && e != 't') {
+                    throw unexpected(json, pos);
+                }
+            } else if (c < 0x20) {
+                throw unexpected(json, pos);
+            }
+            pos++;
+        }
+        throw unexpected(json, pos);
+    }
+
+    private static int checkNumber(String json, int pos) throws ParseException {
+        if (json.charAt(pos) == '-') {
+            pos++;
+        }
+        if (pos < json.length() && json.charAt(pos) == '0') {
+            pos++;
+        } else {
+            pos = checkDigits(json, pos);
+        }
+        if (pos < json.length() && json.charAt(pos) == '.') {
+            pos = checkDigits(json, pos + 1);
+        }
+        if (pos < json.length() && (json.charAt(pos) == 'e' || json.charAt(pos) == 'E')) {
+            pos++;
+            if (pos < json.length() && (json.charAt(pos) == '+' || json.charAt(pos) == '-')) {
+                pos++;
+            }
+            pos = checkDigits(json, pos);
+        }
+        return pos;
+    }
+
+    /**
+     * Checks one or more digits.
+     *
+     * @return The position after the digits.
+     */
+    private static int checkDigits(String json, int pos) throws ParseException {
+        int start = pos;
+        while (pos < json.length() && json.charAt(pos) >= '0' && json.charAt(pos) <= '9') {
+            pos++;
+        }
+        if (pos == start) {
+            throw unexpected(json, pos);
+        }
+        return pos;
+    }
+
+    private static int checkLiteral(String json, int pos, String literal) throws ParseException {
+        if (!json.startsWith(literal, pos)) {
+            throw unexpected(json, pos);
+        }
+        return pos + literal.length();
+    }
+
+    private static int skipWhitespace(String json, int pos) {
+        while (pos < json.length()) {
+            char c = json.charAt(pos);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                break;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    private static ParseException unexpected(String json, int pos) {
+        if (pos >= json.length()) {
+            return new ParseException(pos, ParseException.ERROR_UNEXPECTED_TOKEN, "END OF FILE");
+        }
+        return new ParseException(pos, ParseException.ERROR_UNEXPECTED_CHAR, Character.valueOf(json.charAt(pos)));
+    }
+
     /**
      * Parses a string into a JSONObject.
      *
@@ -75,4 +315,62 @@ public class JsonParser {
         }
     }
 
+    /**
+     * Parses a reader into a JSONObject without reading it into a string first.
+     *
+     * @param reader The reader to parse.
+     * @return The parsed JSONObject.
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the content is not a valid JSON object.
+     */
+    public static JSONObject toObject(Reader reader) throws IOException, ParseException {
+        Object obj = parseAndValidate(reader);
+        if (obj instanceof JSONObject) {
+            return (JSONObject) obj;
+        } else {
+            throw new ParseException(ParseException.ERROR_UNEXPECTED_TOKEN, "The provided content is not a valid JSON object.");
+        }
+    }
+
+    /**
+     * Parses a reader into a JSONArray without reading it into a string first.
+     *
+     * @param reader The reader to parse.
+     * @return The parsed JSONArray.
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the content is not a valid JSON array.
+     */
+    public static JSONArray toArray(Reader reader) throws IOException, ParseException {
+        Object obj = parseAndValidate(reader);
+        if (obj instanceof JSONArray) {
+            return (JSONArray) obj;
+        } else {
+            throw new ParseException(ParseException.ERROR_UNEXPECTED_TOKEN, "The provided content is not a valid JSON array.");
+        }
+    }
+
+    /**
+     * Parses a UTF-8 byte stream into a JSONObject.
+     *
+     * @param in The stream to parse; it is not closed.
+     * @return The parsed JSONObject.
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the content is not a valid JSON object.
+     */
+    public static JSONObject toObject(InputStream in) throws IOException, ParseException {
+        return toObject(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses a UTF-8 byte stream into a JSONArray.
+     *
+     * @param in The stream to parse; it is not closed.
+     * @return The parsed JSONArray.
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the content is not a valid JSON array.
+     */
+    public static JSONArray toArray(InputStream in) throws IOException, ParseException {
+        return toArray(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
 }
@@ -0,0 +1,907 @@
+package util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+
+/**
+ * A pull parser that reads JSON token by token from a stream.
+ * <p>
+ * Unlike {@link JsonParser}, which builds the whole document as one tree, the reader
+ * hands out one token at a time and keeps nothing of what it has passed. Large arrays
+ * can therefore be processed element by element: {@link #readValue()} builds the tree of
+ * a single element, {@link #elements()} and {@link #stream(InputStream)} iterate over the
+ * elements of an array, so the memory needed is that of the largest element, not of the
+ * whole array.
+ * </p>
+ *
+ * <pre>
+ * try (JsonReader reader = new JsonReader(in)) {
+ *     reader.beginArray();
+ *     while (reader.hasNext()) {
+ *         JSONObject object = (JSONObject) reader.readValue();
+ *         ...
+ *     }
+ *     reader.endArray();
+ * }
+ * </pre>
+ *
+ * <p>
+ * Values are returned with the types of json-simple: objects as {@link JSONObject},
+ * arrays as {@link JSONArray}, integers as {@link Long}, other numbers as {@link Double}.
+ * A reader is not thread-safe.
+ * </p>
+ */
+public class JsonReader implements Closeable {
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * The kind of the next token.
+     */
+    public enum Token {
+        /** The start of an array, see {@link JsonReader#beginArray()}. */
+        BEGIN_ARRAY,
+        /** The end of an array, see {@link JsonReader#endArray()}. */
+        END_ARRAY,
+        /** The start of an object, see {@link JsonReader#beginObject()}. */
+        BEGIN_OBJECT,
+        /** The end of an object, see {@link JsonReader#endObject()}. */
+        END_OBJECT,
+        /** The name of an object member, see {@link JsonReader#nextName()}. */
+        NAME,
+        /** A string value, see {@link JsonReader#nextString()}. */
+        STRING,
+        /** A number, see {@link JsonReader#nextNumber()}. */
+        NUMBER,
+        /** true or false, see {@link JsonReader#nextBoolean()}. */
+        BOOLEAN,
+        /** null, see {@link JsonReader#nextNull()}. */
+        NULL,
+        /** The end of the input after the top-level value. */
+        END_DOCUMENT
+    }
+
+    // Zustände je Verschachtelungsebene
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    private static final int DANGLING_NAME = 5;
+    private static final int NONEMPTY_OBJECT = 6;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private long offset;
+
+    private int[] stack = new int[32];
+    private int depth;
+    private Token peeked;
+    private final StringBuilder text = new StringBuilder();
+
+    /**
+     * Creates a reader for a UTF-8 byte stream.
+     *
+     * @param in The stream; it is closed by {@link #close()}.
+     */
+    public JsonReader(InputStream in) {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates a reader.
+     *
+     * @param in The characters to parse; they are read in blocks, so the reader needs no buffering.
+     */
+    public JsonReader(Reader in) {
+        if (in == null) {
+            throw new NullPointerException("The reader cannot be null.");
+        }
+        this.in = in;
+        this.stack[this.depth++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Iterates over the elements of the top-level array of a UTF-8 byte stream. Each
+     * element is parsed when the stream asks for it. Closing the stream closes the input.
+     * <p>
+     * Read and parse errors are thrown as {@link UncheckedIOException}; a
+     * {@link ParseException} is the cause of its cause.
+     * </p>
+     *
+     * @param in The stream holding a JSON array.
+     * @return The elements, as returned by {@link #readValue()}.
+     */
+    public static Stream<Object> stream(InputStream in) {
+        JsonReader reader = new JsonReader(in);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(reader.elements(), Spliterator.ORDERED), false)
+                .onClose(() -> {
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * Iterates over the elements of the array at the current position. The array is
+     * begun on the first call of {@link Iterator#hasNext()} if it has not been begun yet,
+     * and ended after its last element; after that, the end of the document is checked
+     * if the array is the top-level value.
+     * <p>
+     * Read and parse errors are thrown as {@link UncheckedIOException}; a
+     * {@link ParseException} is the cause of its cause.
+     * </p>
+     *
+     * @return The elements, as returned by {@link #readValue()}.
+     */
+    public Iterator<Object> elements() {
+        return new Iterator<Object>() {
+            private boolean begun;
+            private boolean ended;
+
+            @Override
+            public boolean hasNext() {
+                if (this.ended) {
+                    return false;
+                }
+                try {
+                    if (!this.begun) {
+                        this.begun = true;
+                        if (peek() == Token.BEGIN_ARRAY) {
+                            beginArray();
+                        } else if (JsonReader.this.stack[JsonReader.this.depth - 1] != NONEMPTY_ARRAY) {
+                            throw new ParseException(position(), ParseException.ERROR_UNEXPECTED_TOKEN, JsonReader.this.peeked);
+                        }
+                    }
+                    if (JsonReader.this.hasNext()) {
+                        return true;
+                    }
+                    this.ended = true;
+                    endArray();
+                    if (JsonReader.this.depth == 1) {
+                        endDocument();
+                    }
+                    return false;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (ParseException e) {
+                    throw new UncheckedIOException(new IOException(e.toString(), e));
+                }
+            }
+
+            @Override
+            public Object next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    return readValue();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (ParseException e) {
+                    throw new UncheckedIOException(new IOException(e.toString(), e));
+                }
+            }
+        };
+    }
+
+    /**
+     * Gets the kind of the next token without consuming it.
+     *
+     * @return The kind of the next token.
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the input is not well-formed JSON.
+     */
+    public Token peek() throws IOException, ParseException {
+        if (this.peeked != null) {
+            return this.peeked;
+        }
+        int c;
+        switch (this.stack[this.depth - 1]) {
+            case EMPTY_ARRAY:
+                this.stack[this.depth - 1] = NONEMPTY_ARRAY;
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    return this.peeked = Token.END_ARRAY;
+                }
+                if (c == -1) {
+                    throw eof();
+                }
+                this.pos--;
+                break;
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    return this.peeked = Token.END_ARRAY;
+                }
+                if (c != ',') {
+                    throw unexpected(c);
+                }
+                break;
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                boolean empty = this.stack[this.depth - 1] == EMPTY_OBJECT;
+                this.stack[this.depth - 1] = DANGLING_NAME;
+                c = nextNonWhitespace();
+                if (c == '}') {
+                    return this.peeked = Token.END_OBJECT;
+                }
+                if (!empty) {
+                    if (c != ',') {
+                        throw unexpected(c);
+                    }
+                    c = nextNonWhitespace();
+                }
+                if (c != '"') {
+                    throw unexpected(c);
+                }
+                return this.peeked = Token.NAME;
+            case DANGLING_NAME:
+                this.stack[this.depth - 1] = NONEMPTY_OBJECT;
+                c = nextNonWhitespace();
+                if (c != ':') {
+                    throw unexpected(c);
+                }
+                break;
+            case EMPTY_DOCUMENT:
+                this.stack[this.depth - 1] = NONEMPTY_DOCUMENT;
+                break;
+            default:
+                c = nextNonWhitespace();
+                if (c == -1) {
+                    return this.peeked = Token.END_DOCUMENT;
+                }
+                throw unexpected(c);
+        }
+        return this.peeked = peekValue();
+    }
+
+    private Token peekValue() throws IOException, ParseException {
+        int c = nextNonWhitespace();
+        switch (c) {
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case '"':
+                return Token.STRING;
+            case 't':
+            case 'f':
+                this.pos--;
+                return Token.BOOLEAN;
+            case 'n':
+                this.pos--;
+                return Token.NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    this.pos--;
+                    return Token.NUMBER;
+                }
+                throw unexpected(c);
+        }
+    }
+
+    /**
+     * Checks whether the current array or object has another element.
+     *
+     * @return true if the next token is neither the end of an array or object nor the end of the document.
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the input is not well-formed JSON.
+     */
+    public boolean hasNext() throws IOException, ParseException {
+        Token token = peek();
+        return token != Token.END_ARRAY && token != Token.END_OBJECT && token != Token.END_DOCUMENT;
+    }
+
+    /**
+     * Consumes the start of an array.
+     *
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the next token is not the start of an array.
+     */
+    public void beginArray() throws IOException, ParseException {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    /**
+     * Consumes the end of an array.
+     *
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the next token is not the end of an array.
+     */
+    public void endArray() throws IOException, ParseException {
+        expect(Token.END_ARRAY);
+        this.depth--;
+    }
+
+    /**
+     * Consumes the start of an object.
+     *
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the next token is not the start of an object.
+     */
+    public void beginObject() throws IOException, ParseException {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    /**
+     * Consumes the end of an object.
+     *
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the next token is not the end of an object.
+     */
+    public void endObject() throws IOException, ParseException {
+        expect(Token.END_OBJECT);
+        this.depth--;
+    }
+
+    /**
+     * Checks that nothing but whitespace follows the top-level value.
+     *
+     * @throws IOException    If reading fails.
+     * @throws ParseException If there is more input.
+     */
+    public void endDocument() throws IOException, ParseException {
+        if (peek() != Token.END_DOCUMENT) {
+            throw new ParseException(position(), ParseException.ERROR_UNEXPECTED_TOKEN, this.peeked);
+        }
+    }
+
+    /**
+     * Consumes the name of an object member.
+     *
+     * @return The name.
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the next token is not a name.
+     */
+    public String nextName() throws IOException, ParseException {
+        expect(Token.NAME);
+        return readString();
+    }
+
+    /**
+     * Consumes the name of an object member and looks it up in a table of known names.
+     * The name is compared in the read buffer, no string is built for it.
+     *
+     * @param names The known names.
+     * @return The index of the name in the table, or -1 for an unknown name.
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the next token is not a name.
+     */
+    public int nextName(JsonNames names) throws IOException, ParseException {
+        expect(Token.NAME);
+        int start = this.pos;
+        while (this.pos < this.limit) {
+            char c = this.buffer[this.pos++];
+            if (c == '"') {
+                return names.indexOf(this.buffer, start, this.pos - start - 1);
+            }
+            if (c == '\\') {
+                break;
+            }
+        }
+        // Name mit Escape oder über das Pufferende hinaus
+        this.pos = start;
+        return names.indexOf(readString());
+    }
+
+    /**
+     * Consumes a string. A number is returned as it is written.
+     *
+     * @return The string.
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the next token is neither a string nor a number.
+     */
+    public String nextString() throws IOException, ParseException {
+        Token token = peek();
+        if (token == Token.NUMBER) {
+            this.peeked = null;
+            return readNumberText();
+        }
+        expect(Token.STRING);
+        return readString();
+    }
+
+    /**
+     * Consumes a number.
+     *
+     * @return A {@link Long} for an integer, otherwise a {@link Double}.
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the next token is not a number.
+     */
+    public Number nextNumber() throws IOException, ParseException {
+        expect(Token.NUMBER);
+        String number = readNumberText();
+        if (isIntegral(number)) {
+            try {
+                return Long.valueOf(number);
+            } catch (NumberFormatException e) {
+                throw new ParseException(position(), ParseException.ERROR_UNEXPECTED_TOKEN, number);
+            }
+        }
+        return Double.valueOf(number);
+    }
+
+    /**
+     * Consumes a number as a long.
+     *
+     * @return The number.
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the next token is not an integer within the range of long.
+     */
+    public long nextLong() throws IOException, ParseException {
+        expect(Token.NUMBER);
+        scanNumber();
+        return parseLong();
+    }
+
+    /**
+     * Consumes a number as a double.
+     *
+     * @return The number.
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the next token is not a number.
+     */
+    public double nextDouble() throws IOException, ParseException {
+        expect(Token.NUMBER);
+        scanNumber();
+        if (isIntegral(this.text) && this.text.length() < 16) {
+            // Ganze Zahlen bis 15 Stellen sind als double exakt, ohne String zu parsen
+            return parseLong();
+        }
+        return Double.parseDouble(this.text.toString());
+    }
+
+    /**
+     * Consumes a string like {@link #nextString()}, or null.
+     *
+     * @return The string, or null.
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the next token is neither a string, a number nor null.
+     */
+    public String nextStringOrNull() throws IOException, ParseException {
+        return nextIfNull() ? null : nextString();
+    }
+
+    /**
+     * Consumes a number like {@link #nextLong()}, or null.
+     *
+     * @return The number, or null.
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the next token is neither an integer within the range of long nor null.
+     */
+    public Long nextLongOrNull() throws IOException, ParseException {
+        return nextIfNull() ? null : Long.valueOf(nextLong());
+    }
+
+    /**
+     * Consumes a number like {@link #nextDouble()}, or null.
+     *
+     * @return The number, or null.
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the next token is neither a number nor null.
+     */
+    public Double nextDoubleOrNull() throws IOException, ParseException {
+        return nextIfNull() ? null : Double.valueOf(nextDouble());
+    }
+
+    /**
+     * Consumes true or false.
+     *
+     * @return The boolean.
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the next token is not a boolean.
+     */
+    public boolean nextBoolean() throws IOException, ParseException {
+        expect(Token.BOOLEAN);
+        if (fill(1) && this.buffer[this.pos] == 't') {
+            readLiteral("true");
+            return true;
+        }
+        readLiteral("false");
+        return false;
+    }
+
+    /**
+     * Consumes null.
+     *
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the next token is not null.
+     */
+    public void nextNull() throws IOException, ParseException {
+        expect(Token.NULL);
+        readLiteral("null");
+    }
+
+    /**
+     * Reads the next value with everything it contains.
+     *
+     * @return A JSONObject, JSONArray, String, Long, Double, Boolean or null.
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the input is not well-formed JSON or the next token is not a value.
+     */
+    @SuppressWarnings("unchecked")
+    public Object readValue() throws IOException, ParseException {
+        switch (peek()) {
+            case BEGIN_OBJECT:
+                JSONObject object = new JSONObject();
+                beginObject();
+                while (hasNext()) {
+                    String name = nextName();
+                    object.put(name, readValue());
+                }
+                endObject();
+                return object;
+            case BEGIN_ARRAY:
+                JSONArray array = new JSONArray();
+                beginArray();
+                while (hasNext()) {
+                    array.add(readValue());
+                }
+                endArray();
+                return array;
+            case STRING:
+                return nextString();
+            case NUMBER:
+                return nextNumber();
+            case BOOLEAN:
+                return nextBoolean();
+            case NULL:
+                nextNull();
+                return null;
+            default:
+                throw new ParseException(position(), ParseException.ERROR_UNEXPECTED_TOKEN, this.peeked);
+        }
+    }
+
+    /**
+     * Skips the next value with everything it contains, without building it.
+     *
+     * @throws IOException    If reading fails.
+     * @throws ParseException If the input is not well-formed JSON or the next token is not a value.
+     */
+    public void skipValue() throws IOException, ParseException {
+        int level = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_OBJECT:
+                    beginObject();
+                    level++;
+                    break;
+                case BEGIN_ARRAY:
+                    beginArray();
+                    level++;
+                    break;
+                case END_OBJECT:
+                    endObject();
+                    level--;
+                    break;
+                case END_ARRAY:
+                    endArray();
+                    level--;
+                    break;
+                case NAME:
+                    this.peeked = null;
+                    skipString();
+                    break;
+                case STRING:
+                    this.peeked = null;
+                    skipString();
+                    break;
+                case NUMBER:
+                    this.peeked = null;
+                    readNumberText();
+                    break;
+                case BOOLEAN:
+                    nextBoolean();
+                    break;
+                case NULL:
+                    nextNull();
+                    break;
+                default:
+                    throw new ParseException(position(), ParseException.ERROR_UNEXPECTED_TOKEN, this.peeked);
+            }
+        } while (level > 0);
+    }
+
+    /**
+     * Closes the input.
+     *
+     * @throws IOException If closing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        this.peeked = null;
+        this.depth = 0;
+        this.in.close();
+    }
+
+    private boolean nextIfNull() throws IOException, ParseException {
+        if (peek() != Token.NULL) {
+            return false;
+        }
+        nextNull();
+        return true;
+    }
+
+    private void expect(Token token) throws IOException, ParseException {
+        if (peek() != token) {
+            throw new ParseException(position(), ParseException.ERROR_UNEXPECTED_TOKEN, this.peeked);
+        }
+        this.peeked = null;
+    }
+
+    private void push(int scope) {
+        if (this.depth == this.stack.length) {
+            int[] grown = new int[this.depth * 2];
+            System.arraycopy(this.stack, 0, grown, 0, this.depth);
+            this.stack = grown;
+        }
+        this.stack[this.depth++] = scope;
+    }
+
+    /**
+     * Makes at least the given number of characters available in the buffer.
+     *
+     * @return false if the input ends before.
+     */
+    private boolean fill(int minimum) throws IOException {
+        if (this.limit - this.pos >= minimum) {
+            return true;
+        }
+        this.offset += this.pos;
+        int remaining = this.limit - this.pos;
+        System.arraycopy(this.buffer, this.pos, this.buffer, 0, remaining);
+        this.pos = 0;
+        this.limit = remaining;
+        while (this.limit < minimum) {
+            int read = this.in.read(this.buffer, this.limit, this.buffer.length - this.limit);
+            if (read == -1) {
+                return false;
+            }
+            this.limit += read;
+        }
+        return true;
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        while (this.pos < this.limit || fill(1)) {
+            char c = this.buffer[this.pos++];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads a string whose opening quote has been consumed.
+     */
+    private String readString() throws IOException, ParseException {
+        this.text.setLength(0);
+        while (true) {
+            int start = this.pos;
+            while (this.pos < this.limit) {
+                char c = this.buffer[this.pos++];
+                if (c == '"') {
+                    // Häufiger Fall: der ganze String liegt im Puffer und enthält kein Escape
+                    if (this.text.length() == 0) {
+                        return new String(this.buffer, start, this.pos - start - 1);
+                    }
+                    this.text.append(this.buffer, start, this.pos - start - 1);
+                    return this.text.toString();
+                }
+                if (c == '\\') {
+                    this.text.append(this.buffer, start, this.pos - start - 1);
+                    this.text.append(readEscape());
+                    start = this.pos;
+                }
+            }
+            this.text.append(this.buffer, start, this.pos - start);
+            if (!fill(1)) {
+                throw eof();
+            }
+        }
+    }
+
+    private void skipString() throws IOException, ParseException {
+        while (this.pos < this.limit || fill(1)) {
+            char c = this.buffer[this.pos++];
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                readEscape();
+            }
+        }
+        throw eof();
+    }
+
+    /**
+     * Reads an escape sequence whose backslash has been consumed.
+     */
+    private char readEscape() throws IOException, ParseException {
+        if (!fill(1)) {
+            throw eof();
+        }
+        char c = this.buffer[this.pos++];
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                return c;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                if (!fill(4)) {
+                    throw eof();
+                }
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    char hex = this.buffer[this.pos++];
+                    int digit = Character.digit(hex, 16);
+                    if (digit < 0) {
+                        throw unexpected(hex);
+                    }
+                    value = (value << 4) | digit;
+                }
+                return (char) value;
+            default:
+                throw unexpected(c);
+        }
+    }
+
+    private String readNumberText() throws IOException, ParseException {
+        scanNumber();
+        return this.text.toString();
+    }
+
+    /**
+     * Reads a number into the text buffer and checks its grammar.
+     */
+    private void scanNumber() throws IOException, ParseException {
+        this.text.setLength(0);
+        while (this.pos < this.limit || fill(1)) {
+            char c = this.buffer[this.pos];
+            if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                this.text.append(c);
+                this.pos++;
+            } else {
+                break;
+            }
+        }
+        if (!isNumber(this.text)) {
+            throw new ParseException(position(), ParseException.ERROR_UNEXPECTED_TOKEN, this.text.toString());
+        }
+    }
+
+    /**
+     * Parses the integer in the text buffer.
+     */
+    private long parseLong() throws ParseException {
+        boolean negative = this.text.charAt(0) == '-';
+        long value = 0;
+        for (int i = negative ? 1 : 0; i < this.text.length(); i++) {
+            int digit = this.text.charAt(i) - '0';
+            // Negativ aufsummieren, damit Long.MIN_VALUE darstellbar ist
+            if (digit < 0 || digit > 9 || value < (Long.MIN_VALUE + digit) / 10) {
+                throw new ParseException(position(), ParseException.ERROR_UNEXPECTED_TOKEN, this.text.toString());
+            }
+            value = value * 10 - digit;
+        }
+        if (!negative) {
+            if (value == Long.MIN_VALUE) {
+                throw new ParseException(position(), ParseException.ERROR_UNEXPECTED_TOKEN, this.text.toString());
+            }
+            return -value;
+        }
+        return value;
+    }
+
+    private void readLiteral(String literal) throws IOException, ParseException {
+        if (!fill(literal.length())) {
+            throw eof();
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            char c = this.buffer[this.pos++];
+            if (c != literal.charAt(i)) {
+                throw unexpected(c);
+            }
+        }
+    }
+
+    /**
+     * Checks the number grammar of RFC 8259.
+     */
+    private static boolean isNumber(CharSequence number) {
+        int i = 0;
+        int length = number.length();
+        if (i < length && number.charAt(i) == '-') {
+            i++;
+        }
+        int digits = i;
+        while (i < length && Character.isDigit(number.charAt(i))) {
+            i++;
+        }
+        if (i == digits || (number.charAt(digits) == '0' && i - digits > 1)) {
+            return false;
+        }
+        if (i < length && number.charAt(i) == '.') {
+            digits = ++i;
+            while (i < length && Character.isDigit(number.charAt(i))) {
+                i++;
+            }
+            if (i == digits) {
+                return false;
+            }
+        }
+        if (i < length && (number.charAt(i) == 'e' || number.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (number.charAt(i) == '+' || number.charAt(i) == '-')) {
+                i++;
+            }
+            digits = i;
+            while (i < length && Character.isDigit(number.charAt(i))) {
+                i++;
+            }
+            if (i == digits) {
+                return false;
+            }
+        }
+        return i == length;
+    }
+
+    private static boolean isIntegral(CharSequence number) {
+        for (int i = 0; i < number.length(); i++) {
+            char c = number.charAt(i);
+            if (c == '.' || c == 'e' || c == 'E') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int position() {
+        return (int) Math.min(Integer.MAX_VALUE, this.offset + this.pos);
+    }
+
+    private ParseException unexpected(int c) {
+        if (c == -1) {
+            return eof();
+        }
+        return new ParseException(position() - 1, ParseException.ERROR_UNEXPECTED_CHAR, Character.valueOf((char) c));
+    }
+
+    private ParseException eof() {
+        return new ParseException(position(), ParseException.ERROR_UNEXPECTED_TOKEN, "END OF FILE");
+    }
+
+}
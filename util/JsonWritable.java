@@ -0,0 +1,21 @@
+package util;
+
+/**
+ * An object that writes itself as one JSON value to a {@link JsonWriter}, without building
+ * a {@link org.json.simple.JSONObject} first.
+ *
+ * <pre>
+ * String json = JsonWriter.toJson(device);
+ * </pre>
+ */
+@FunctionalInterface
+public interface JsonWritable {
+
+    /**
+     * Writes this object as one JSON value.
+     *
+     * @param writer The writer, positioned where a value is allowed.
+     */
+    void writeJson(JsonWriter writer);
+
+}
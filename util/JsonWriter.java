@@ -0,0 +1,466 @@
+package util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes JSON text that is valid by construction.
+ * <p>
+ * Names, values and brackets are appended in document order; the writer keeps track of
+ * the nesting and inserts the separators, and throws an {@link IllegalStateException}
+ * on any call that would produce invalid JSON. Strings are escaped like
+ * {@link org.json.simple.JSONValue#escape(String)}. Request bodies built with this class
+ * can therefore be sent without validating them again, with {@link HttpHandler.Validation#OFF}.
+ * </p>
+ *
+ * <pre>
+ * String body = new JsonWriter().beginObject().name("value").value(1).endObject().toString();
+ * </pre>
+ *
+ * <p>
+ * The text is kept in one buffer that {@link #reset()} clears for the next document, and
+ * {@link #writeTo(OutputStream)} encodes it to UTF-8 without an intermediate string.
+ * {@link #toJson(JsonWritable)} writes with a writer kept per thread, so serializing a
+ * model object allocates only the resulting string.
+ * </p>
+ */
+public class JsonWriter {
+    // Zustände der aktuellen Ebene
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT = 2;
+    private static final int NONEMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int EMPTY_ARRAY = 5;
+    private static final int NONEMPTY_ARRAY = 6;
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final int BYTE_BUFFER_SIZE = 4096;
+    // Größere Puffer werden nach toJson() nicht im Thread behalten
+    private static final int MAX_RETAINED = 64 * 1024;
+    private static final ThreadLocal<JsonWriter> LOCAL = ThreadLocal.withInitial(JsonWriter::new);
+
+    private final StringBuilder out;
+    private int[] stack = new int[8];
+    private int depth = 1;
+    private byte[] bytes;
+    private boolean inUse;
+
+    /**
+     * Creates a writer with an empty document.
+     */
+    public JsonWriter() {
+        this.out = new StringBuilder();
+        this.stack[0] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Writes a value to JSON text with a writer kept per thread.
+     *
+     * @param value The value to write.
+     * @return The JSON text.
+     * @throws IllegalStateException If the value does not write exactly one complete JSON value.
+     */
+    public static String toJson(JsonWritable value) {
+        JsonWriter writer = LOCAL.get();
+        if (writer.inUse) {
+            // Aufruf aus writeJson() heraus, der Writer des Threads ist belegt
+            writer = new JsonWriter();
+        }
+        writer.inUse = true;
+        try {
+            writer.reset();
+            value.writeJson(writer);
+            if (!writer.isComplete()) {
+                throw new IllegalStateException("The JSON document is incomplete.");
+            }
+            return writer.toString();
+        } finally {
+            writer.inUse = false;
+            if (writer.out.capacity() > MAX_RETAINED && writer == LOCAL.get()) {
+                LOCAL.remove();
+            }
+        }
+    }
+
+    /**
+     * Starts an object.
+     *
+     * @return This writer.
+     */
+    public JsonWriter beginObject() {
+        beforeValue();
+        push(EMPTY_OBJECT);
+        this.out.append('{');
+        return this;
+    }
+
+    /**
+     * Ends the current object.
+     *
+     * @return This writer.
+     * @throws IllegalStateException If no object is open or a name has no value.
+     */
+    public JsonWriter endObject() {
+        return close(EMPTY_OBJECT, NONEMPTY_OBJECT, '}');
+    }
+
+    /**
+     * Starts an array.
+     *
+     * @return This writer.
+     */
+    public JsonWriter beginArray() {
+        beforeValue();
+        push(EMPTY_ARRAY);
+        this.out.append('[');
+        return this;
+    }
+
+    /**
+     * Ends the current array.
+     *
+     * @return This writer.
+     * @throws IllegalStateException If no array is open.
+     */
+    public JsonWriter endArray() {
+        return close(EMPTY_ARRAY, NONEMPTY_ARRAY, ']');
+    }
+
+    /**
+     * Writes the name of the next member of the current object.
+     *
+     * @param name The member name.
+     * @return This writer.
+     * @throws NullPointerException  If the name is null.
+     * @throws IllegalStateException If no object is open or the previous name has no value.
+     */
+    public JsonWriter name(String name) {
+        if (name == null) {
+            throw new NullPointerException("The name cannot be null.");
+        }
+        int scope = peek();
+        if (scope == NONEMPTY_OBJECT) {
+            this.out.append(',');
+        } else if (scope != EMPTY_OBJECT) {
+            throw new IllegalStateException("A name is only allowed inside an object, before its value.");
+        }
+        this.stack[this.depth - 1] = DANGLING_NAME;
+        string(name);
+        this.out.append(':');
+        return this;
+    }
+
+    /**
+     * Writes a string value.
+     *
+     * @param value The value, or null for JSON null.
+     * @return This writer.
+     */
+    public JsonWriter value(String value) {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        string(value);
+        return this;
+    }
+
+    /**
+     * Writes a number.
+     *
+     * @param value The value.
+     * @return This writer.
+     */
+    public JsonWriter value(long value) {
+        beforeValue();
+        this.out.append(value);
+        return this;
+    }
+
+    /**
+     * Writes a number.
+     *
+     * @param value The value.
+     * @return This writer.
+     * @throws IllegalArgumentException If the value is NaN or infinite, which JSON cannot represent.
+     */
+    public JsonWriter value(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("JSON cannot represent " + value + ".");
+        }
+        beforeValue();
+        this.out.append(value);
+        return this;
+    }
+
+    /**
+     * Writes a number, e.g. a {@code Long}, {@code Double} or {@code BigDecimal}.
+     *
+     * @param value The value, or null for JSON null.
+     * @return This writer.
+     * @throws IllegalArgumentException If the value is NaN or infinite.
+     */
+    public JsonWriter value(Number value) {
+        if (value == null) {
+            return nullValue();
+        }
+        if (value instanceof Float) {
+            float number = value.floatValue();
+            if (Float.isNaN(number) || Float.isInfinite(number)) {
+                throw new IllegalArgumentException("JSON cannot represent " + number + ".");
+            }
+            beforeValue();
+            this.out.append(number);
+            return this;
+        }
+        if (value instanceof Double) {
+            return value(value.doubleValue());
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return value(value.longValue());
+        }
+        beforeValue();
+        this.out.append(value.toString());
+        return this;
+    }
+
+    /**
+     * Writes a boolean.
+     *
+     * @param value The value.
+     * @return This writer.
+     */
+    public JsonWriter value(boolean value) {
+        beforeValue();
+        this.out.append(value);
+        return this;
+    }
+
+    /**
+     * Writes a value of the types json-simple uses: a {@link Map} as object, a
+     * {@link Collection} or an {@code Object[]} as array, a {@link String}, {@link Number},
+     * {@link Boolean}, a {@link JsonWritable}, or null. Any other object is written as the
+     * string of its {@code toString()}.
+     *
+     * @param value The value, e.g. the data of a {@code JSONObject}.
+     * @return This writer.
+     * @throws IllegalArgumentException If a number is NaN or infinite.
+     */
+    public JsonWriter value(Object value) {
+        if (value == null) {
+            return nullValue();
+        } else if (value instanceof String) {
+            return value((String) value);
+        } else if (value instanceof Number) {
+            return value((Number) value);
+        } else if (value instanceof Boolean) {
+            return value(((Boolean) value).booleanValue());
+        } else if (value instanceof JsonWritable) {
+            ((JsonWritable) value).writeJson(this);
+            return this;
+        } else if (value instanceof Map) {
+            beginObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                name(String.valueOf(entry.getKey()));
+                value(entry.getValue());
+            }
+            return endObject();
+        } else if (value instanceof Collection) {
+            beginArray();
+            for (Object element : (Collection<?>) value) {
+                value(element);
+            }
+            return endArray();
+        } else if (value instanceof Object[]) {
+            beginArray();
+            for (Object element : (Object[]) value) {
+                value(element);
+            }
+            return endArray();
+        }
+        return value(value.toString());
+    }
+
+    /**
+     * Writes JSON null.
+     *
+     * @return This writer.
+     */
+    public JsonWriter nullValue() {
+        beforeValue();
+        this.out.append("null");
+        return this;
+    }
+
+    /**
+     * Checks whether the document is complete, i.e. one value was written and all
+     * objects and arrays are closed.
+     *
+     * @return true if the document is complete.
+     */
+    public boolean isComplete() {
+        return this.depth == 1 && this.stack[0] == NONEMPTY_DOCUMENT;
+    }
+
+    /**
+     * Clears the writer for the next document, keeping its buffer.
+     *
+     * @return This writer.
+     */
+    public JsonWriter reset() {
+        this.out.setLength(0);
+        this.depth = 1;
+        this.stack[0] = EMPTY_DOCUMENT;
+        return this;
+    }
+
+    /**
+     * Writes the JSON text written so far to a stream as UTF-8, encoding it in a buffer of
+     * this writer instead of building a string or byte array of the whole text.
+     *
+     * @param stream The stream; it is neither flushed nor closed.
+     * @throws IOException If writing to the stream fails.
+     */
+    public void writeTo(OutputStream stream) throws IOException {
+        if (this.bytes == null) {
+            this.bytes = new byte[BYTE_BUFFER_SIZE];
+        }
+        byte[] buffer = this.bytes;
+        int count = 0;
+        int length = this.out.length();
+        for (int i = 0; i < length; i++) {
+            if (count > buffer.length - 4) {
+                stream.write(buffer, 0, count);
+                count = 0;
+            }
+            char ch = this.out.charAt(i);
+            if (ch < 0x80) {
+                buffer[count++] = (byte) ch;
+            } else if (ch < 0x800) {
+                buffer[count++] = (byte) (0xC0 | ch >> 6);
+                buffer[count++] = (byte) (0x80 | ch & 0x3F);
+            } else if (Character.isHighSurrogate(ch) && i + 1 < length && Character.isLowSurrogate(this.out.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(ch, this.out.charAt(++i));
+                buffer[count++] = (byte) (0xF0 | codePoint >> 18);
+                buffer[count++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                buffer[count++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                buffer[count++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(ch)) {
+                // Wie String.getBytes(): ein einzelnes Surrogat wird zu '?'
+                buffer[count++] = '?';
+            } else {
+                buffer[count++] = (byte) (0xE0 | ch >> 12);
+                buffer[count++] = (byte) (0x80 | ch >> 6 & 0x3F);
+                buffer[count++] = (byte) (0x80 | ch & 0x3F);
+            }
+        }
+        stream.write(buffer, 0, count);
+    }
+
+    /**
+     * Returns the JSON text written so far.
+     *
+     * @return The JSON text.
+     */
+    @Override
+    public String toString() {
+        return this.out.toString();
+    }
+
+    private void beforeValue() {
+        switch (peek()) {
+            case EMPTY_DOCUMENT:
+                this.stack[this.depth - 1] = NONEMPTY_DOCUMENT;
+                break;
+            case DANGLING_NAME:
+                this.stack[this.depth - 1] = NONEMPTY_OBJECT;
+                break;
+            case EMPTY_ARRAY:
+                this.stack[this.depth - 1] = NONEMPTY_ARRAY;
+                break;
+            case NONEMPTY_ARRAY:
+                this.out.append(',');
+                break;
+            case NONEMPTY_DOCUMENT:
+                throw new IllegalStateException("A JSON document has only one top-level value.");
+            default:
+                throw new IllegalStateException("A value inside an object needs a name first.");
+        }
+    }
+
+    private JsonWriter close(int empty, int nonempty, char bracket) {
+        int scope = peek();
+        if (scope != empty && scope != nonempty) {
+            throw new IllegalStateException("Cannot close with '" + bracket + "' here.");
+        }
+        this.depth--;
+        this.out.append(bracket);
+        return this;
+    }
+
+    private void push(int scope) {
+        if (this.depth == this.stack.length) {
+            this.stack = Arrays.copyOf(this.stack, this.depth * 2);
+        }
+        this.stack[this.depth++] = scope;
+    }
+
+    private int peek() {
+        return this.stack[this.depth - 1];
+    }
+
+    /**
+     * Writes a quoted string, escaped like json-simple does.
+     */
+    private void string(String value) {
+        this.out.append('"');
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char ch = value.charAt(i);
+            String escape;
+            switch (ch) {
+                case '"':
+                    escape = "\\\"";
+                    break;
+                case '\\':
+                    escape = "\\\\";
+                    break;
+                case '\b':
+                    escape = "\\b";
+                    break;
+                case '\f':
+                    escape = "\\f";
+                    break;
+                case '\n':
+                    escape = "\\n";
+                    break;
+                case '\r':
+                    escape = "\\r";
+                    break;
+                case '\t':
+                    escape = "\\t";
+                    break;
+                case '/':
+                    escape = "\\/";
+                    break;
+                default:
+                    if (ch <= 0x1F || (ch >= 0x7F && ch <= 0x9F) || (ch >= 0x2000 && ch <= 0x20FF)) {
+                        this.out.append(value, start, i).append("\\u")
+                                .append(HEX[ch >> 12 & 0xF]).append(HEX[ch >> 8 & 0xF])
+                                .append(HEX[ch >> 4 & 0xF]).append(HEX[ch & 0xF]);
+                        start = i + 1;
+                    }
+                    continue;
+            }
+            this.out.append(value, start, i).append(escape);
+            start = i + 1;
+        }
+        this.out.append(value, start, length).append('"');
+    }
+
+}
@@ -0,0 +1,108 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies in microseconds.
+ * <p>
+ * Values below {@value #LINEAR} are counted exactly; above, every power of two is split
+ * into {@value #SUB_BUCKETS} buckets, so a quantile is never off by more than about 6 %.
+ * Recording is a few atomic increments and never blocks, so it can run on every request.
+ * </p>
+ */
+final class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int LINEAR = SUB_BUCKETS * 2;
+    // Bis 2^40 µs (ca. 12 Tage), darüber landet alles im letzten Bucket
+    private static final int MAX_EXPONENT = 40;
+    static final int BUCKETS = LINEAR + (MAX_EXPONENT - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency.
+     *
+     * @param micros The latency in microseconds; negative values count as 0.
+     */
+    void record(long micros) {
+        long value = Math.max(0, micros);
+        this.counts.incrementAndGet(index(value));
+        this.sum.addAndGet(value);
+        this.max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Copies the bucket counts. The copy is not atomic across buckets, but every
+     * completed recording is included.
+     *
+     * @return The counts per bucket.
+     */
+    long[] buckets() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = this.counts.get(i);
+        }
+        return copy;
+    }
+
+    long sum() {
+        return this.sum.get();
+    }
+
+    long max() {
+        return this.max.get();
+    }
+
+    /**
+     * Gets the value at a quantile of copied bucket counts.
+     *
+     * @param buckets  The counts from {@link #buckets()}.
+     * @param quantile The quantile, e.g. 0.99.
+     * @return The highest value of the bucket containing the quantile, or 0 if empty.
+     */
+    static long quantile(long[] buckets, double quantile) {
+        long total = 0;
+        for (long count : buckets) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(buckets.length - 1);
+    }
+
+    static int index(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR + (exponent - SUB_BITS - 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        int exponent = (index - LINEAR) / SUB_BUCKETS + SUB_BITS + 1;
+        int sub = (index - LINEAR) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BITS);
+        return (1L << exponent) + (sub + 1) * width - 1;
+    }
+
+}
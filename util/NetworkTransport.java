@@ -0,0 +1,66 @@
+package util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends requests to the network with an {@link HttpClient}. This is the default
+ * transport of {@link HttpHandler}.
+ */
+public class NetworkTransport implements HttpTransport {
+    /**
+     * Receives the whole body without blocking a thread and hands it on as a stream from
+     * memory, so that the completion stages of an asynchronous request never wait for
+     * the network.
+     */
+    static final HttpResponse.BodyHandler<InputStream> BUFFERED = info -> HttpResponse.BodySubscribers
+            .mapping(HttpResponse.BodySubscribers.ofByteArray(), body -> (InputStream) new ByteArrayInputStream(body));
+
+    private final HttpClient client;
+
+    /**
+     * Creates a transport that uses the shared client of {@link HttpHandler}, including
+     * its timeouts and HTTP version as they are set at the time of each request.
+     */
+    public NetworkTransport() {
+        this.client = null;
+    }
+
+    /**
+     * Creates a transport that uses its own client.
+     *
+     * @param client The client.
+     */
+    public NetworkTransport(HttpClient client) {
+        if (client == null) {
+            throw new NullPointerException("The client cannot be null.");
+        }
+        this.client = client;
+    }
+
+    private HttpClient client() {
+        return this.client != null ? this.client : HttpHandler.getClient();
+    }
+
+    @Override
+    public HttpResponse<InputStream> send(HttpRequest request) throws IOException {
+        try {
+            return client().send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Request to " + request.uri() + " was interrupted.");
+        }
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse<InputStream>> sendAsync(HttpRequest request) {
+        return client().sendAsync(request, BUFFERED);
+    }
+
+}
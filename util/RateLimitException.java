@@ -0,0 +1,41 @@
+package util;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of sending a request when the rate limit of its host is used up and the
+ * policy fails fast, see {@link HostPolicy#setRateLimit(double, int)}.
+ */
+public class RateLimitException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final String host;
+    private final long retryMillis;
+
+    /**
+     * Creates the exception.
+     *
+     * @param host        The host whose rate limit is used up.
+     * @param retryMillis The time until the next request is allowed.
+     */
+    public RateLimitException(String host, long retryMillis) {
+        super("The rate limit for " + host + " is used up, the next request is allowed in " + retryMillis + " ms.");
+        this.host = host;
+        this.retryMillis = retryMillis;
+    }
+
+    /**
+     * @return The host whose rate limit is used up.
+     */
+    public String getHost() {
+        return this.host;
+    }
+
+    /**
+     * @return The time until the next request is allowed, in milliseconds.
+     */
+    public long getRetryMillis() {
+        return this.retryMillis;
+    }
+
+}
@@ -0,0 +1,147 @@
+package util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free rate limiter that allows a number of permits per second with bursts.
+ * <p>
+ * The limiter behaves like a token bucket of the size of the burst that is refilled at
+ * the rate, but it is implemented with the generic cell rate algorithm: the only state
+ * is the theoretical arrival time of the next permit, updated with a compare-and-set.
+ * Taking a permit therefore never locks, and concurrent callers are served in the order
+ * of their successful update.
+ * </p>
+ *
+ * <p>
+ * A permit can be reserved ahead ({@link #reserve()}), which returns the time the caller
+ * has to wait, taken without waiting ({@link #tryAcquire()}), waited for on the calling
+ * thread ({@link #acquire()}) or waited for without blocking ({@link #acquireAsync()}).
+ * </p>
+ *
+ * <pre>
+ * RateLimiter limiter = new RateLimiter(20, 5);
+ * limiter.acquire();
+ * HttpHandler.getResponse(HttpHandler.createConnection(url, HttpHandler.GET, null, null));
+ * </pre>
+ */
+public class RateLimiter {
+    private final double permitsPerSecond;
+    private final int burst;
+    private final long interval;
+    private final long tolerance;
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * Creates a limiter whose bucket is full, so that the first burst of permits is
+     * available immediately.
+     *
+     * @param permitsPerSecond The sustained rate.
+     * @param burst            The number of permits that may be taken at once after a pause.
+     * @throws IllegalArgumentException If the rate is not positive or the burst is less than 1.
+     */
+    public RateLimiter(double permitsPerSecond, int burst) {
+        if (!(permitsPerSecond > 0) || Double.isInfinite(permitsPerSecond)) {
+            throw new IllegalArgumentException("The rate must be positive.");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("The burst must be at least 1.");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.interval = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.tolerance = this.interval * (burst - 1);
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * @return The sustained rate in permits per second.
+     */
+    public double getRate() {
+        return this.permitsPerSecond;
+    }
+
+    /**
+     * @return The number of permits that may be taken at once.
+     */
+    public int getBurst() {
+        return this.burst;
+    }
+
+    /**
+     * Reserves a permit. The caller must wait the returned time before it uses the permit.
+     *
+     * @return The nanoseconds to wait, 0 if the permit can be used immediately.
+     */
+    public long reserve() {
+        return reserve(Long.MAX_VALUE);
+    }
+
+    /**
+     * Reserves a permit if it is available within the given time.
+     *
+     * @param maxWaitNanos The longest acceptable wait in nanoseconds.
+     * @return The nanoseconds to wait, or -1 if the wait would be longer; no permit is
+     *         reserved then.
+     */
+    public long reserve(long maxWaitNanos) {
+        long now = System.nanoTime();
+        while (true) {
+            long arrival = this.theoreticalArrival.get();
+            // Vergleiche über die Differenz, System.nanoTime() darf überlaufen
+            long start = arrival - now > 0 ? arrival : now;
+            long wait = Math.max(0, arrival - now - this.tolerance);
+            if (wait > maxWaitNanos) {
+                return -1;
+            }
+            if (this.theoreticalArrival.compareAndSet(arrival, start + this.interval)) {
+                return wait;
+            }
+        }
+    }
+
+    /**
+     * Takes a permit if one is available now.
+     *
+     * @return true if the permit was taken.
+     */
+    public boolean tryAcquire() {
+        return reserve(0) == 0;
+    }
+
+    /**
+     * Takes a permit, blocking until it is available.
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting; the permit is used up anyway.
+     */
+    public void acquire() throws InterruptedException {
+        long wait = reserve();
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Takes a permit without blocking.
+     *
+     * @return A future that completes when the permit may be used.
+     */
+    public CompletableFuture<Void> acquireAsync() {
+        long wait = reserve();
+        if (wait == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Gets the time until the next permit is available, without taking it.
+     *
+     * @return The nanoseconds until a permit is available, 0 if one is available now.
+     */
+    public long nanosUntilAvailable() {
+        return Math.max(0, this.theoreticalArrival.get() - System.nanoTime() - this.tolerance);
+    }
+
+}
@@ -0,0 +1,221 @@
+package util;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A transport that answers requests from recorded responses in memory, without any
+ * network access.
+ * <p>
+ * Responses are recorded per method and URL, either with
+ * {@link #record(String, String, int, String)} or by sending the first request for a URL
+ * to another transport, see {@link #ReplayTransport(HttpTransport)}. Every following
+ * request for the same method and URL gets the same status, headers and body. Requests
+ * without a recorded response fail with a {@link FileNotFoundException}.
+ * </p>
+ *
+ * <pre>
+ * ReplayTransport replay = new ReplayTransport();
+ * replay.record(HttpHandler.GET, "http://evok:8080/json/ro/all", 200, relays);
+ * HttpHandler.setTransport(replay);
+ * new UnipiApi("evok", "8080").getRelaisList();
+ * </pre>
+ */
+public class ReplayTransport implements HttpTransport {
+    private static final HttpHeaders JSON_HEADERS = HttpHeaders.of(
+            Collections.singletonMap("Content-Type", Collections.singletonList("application/json")), (name, value) -> true);
+
+    private final Map<String, Recording> recordings = new ConcurrentHashMap<>();
+    private final HttpTransport recordFrom;
+    private final AtomicLong replayed = new AtomicLong();
+
+    /**
+     * Creates a transport without recorded responses.
+     */
+    public ReplayTransport() {
+        this.recordFrom = null;
+    }
+
+    /**
+     * Creates a transport that records responses it does not know yet. The first request
+     * for a method and URL is sent to the given transport; its response is recorded and
+     * replayed for all following requests.
+     *
+     * @param recordFrom The transport that delivers unknown requests, e.g. a {@link NetworkTransport}.
+     */
+    public ReplayTransport(HttpTransport recordFrom) {
+        if (recordFrom == null) {
+            throw new NullPointerException("The recordFrom transport cannot be null.");
+        }
+        this.recordFrom = recordFrom;
+    }
+
+    /**
+     * Records a JSON response.
+     *
+     * @param method     The HTTP method.
+     * @param url        The complete URL, including the query.
+     * @param statusCode The status code of the response.
+     * @param body       The JSON body, or null for an empty body.
+     */
+    public void record(String method, String url, int statusCode, String body) {
+        record(method, url, statusCode, JSON_HEADERS.map(), body != null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0]);
+    }
+
+    /**
+     * Records a response.
+     *
+     * @param method     The HTTP method.
+     * @param url        The complete URL, including the query.
+     * @param statusCode The status code of the response.
+     * @param headers    The response headers.
+     * @param body       The body.
+     */
+    public void record(String method, String url, int statusCode, Map<String, List<String>> headers, byte[] body) {
+        if (method == null || url == null || headers == null || body == null) {
+            throw new NullPointerException("The method, url, headers and body cannot be null.");
+        }
+        this.recordings.put(key(method, URI.create(url)), new Recording(statusCode, headers, body.clone()));
+    }
+
+    /**
+     * Removes the recorded response for a method and URL.
+     *
+     * @param method The HTTP method.
+     * @param url    The complete URL, including the query.
+     */
+    public void remove(String method, String url) {
+        this.recordings.remove(key(method, URI.create(url)));
+    }
+
+    /**
+     * Removes all recorded responses.
+     */
+    public void clear() {
+        this.recordings.clear();
+    }
+
+    /**
+     * Gets the number of recorded responses.
+     *
+     * @return The number of distinct methods and URLs with a response.
+     */
+    public int size() {
+        return this.recordings.size();
+    }
+
+    /**
+     * Gets the number of requests answered from a recorded response.
+     *
+     * @return The number of replayed responses.
+     */
+    public long getReplayCount() {
+        return this.replayed.get();
+    }
+
+    @Override
+    public HttpResponse<InputStream> send(HttpRequest request) throws IOException {
+        String key = key(request.method(), request.uri());
+        Recording recording = this.recordings.get(key);
+        if (recording == null) {
+            if (this.recordFrom == null) {
+                throw new FileNotFoundException("No response recorded for " + key + ".");
+            }
+            HttpResponse<InputStream> response = this.recordFrom.send(request);
+            byte[] body;
+            try (InputStream in = response.body()) {
+                body = in.readAllBytes();
+            }
+            recording = new Recording(response.statusCode(), response.headers().map(), body);
+            this.recordings.put(key, recording);
+            return recording.toResponse(request, response.version());
+        }
+        this.replayed.incrementAndGet();
+        return recording.toResponse(request, HttpClient.Version.HTTP_1_1);
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse<InputStream>> sendAsync(HttpRequest request) {
+        Recording recording = this.recordings.get(key(request.method(), request.uri()));
+        if (recording != null) {
+            this.replayed.incrementAndGet();
+            return CompletableFuture.completedFuture(recording.toResponse(request, HttpClient.Version.HTTP_1_1));
+        }
+        if (this.recordFrom == null) {
+            try {
+                return CompletableFuture.completedFuture(send(request));
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        // Aufzeichnen blockiert nicht den Aufrufer
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return send(request);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    private static String key(String method, URI uri) {
+        return method + " " + uri;
+    }
+
+    /**
+     * A recorded response. Every replay gets its own stream over the shared body.
+     */
+    static final class Recording {
+        private final int statusCode;
+        private final HttpHeaders headers;
+        private final byte[] body;
+
+        /**
+         * Creates a recording.
+         *
+         * @param statusCode The status code.
+         * @param headers    The response headers.
+         * @param body       The body, not copied.
+         */
+        Recording(int statusCode, Map<String, List<String>> headers, byte[] body) {
+            Map<String, List<String>> copy = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            copy.putAll(headers);
+            this.statusCode = statusCode;
+            this.headers = HttpHeaders.of(copy, (name, value) -> true);
+            this.body = body;
+        }
+
+        int getStatusCode() {
+            return this.statusCode;
+        }
+
+        HttpHeaders getHeaders() {
+            return this.headers;
+        }
+
+        byte[] getBody() {
+            return this.body;
+        }
+
+        HttpResponse<InputStream> toResponse(HttpRequest request, HttpClient.Version version) {
+            return new BufferedResponse(request, this.statusCode, this.headers, version, new ByteArrayInputStream(this.body));
+        }
+    }
+
+}
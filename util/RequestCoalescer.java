@@ -0,0 +1,267 @@
+package util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lets concurrent identical GET requests share one exchange with the server.
+ * <p>
+ * The first caller for a URL and Authorization header sends the request. Callers
+ * arriving while it is in flight wait for the same response instead of sending their
+ * own, and each receives its own copy of the buffered body. Once the response is
+ * complete, the next caller sends a new request, so no caller ever gets a response that
+ * was requested before the previous one finished.
+ * </p>
+ *
+ * <p>
+ * The body is only buffered if another caller has attached by the time the response
+ * arrives. Otherwise the first caller streams it like an unshared request, and callers
+ * arriving after that send their own.
+ * </p>
+ *
+ * <p>
+ * Bodies larger than {@value #MAX_SHARED_BODY} bytes are not buffered: the first caller
+ * streams its body as usual and the waiting callers send their own requests.
+ * </p>
+ */
+final class RequestCoalescer {
+    static final int MAX_SHARED_BODY = 1024 * 1024;
+
+    private final ConcurrentHashMap<String, Pending> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Sends a request or waits for an identical one in flight.
+     *
+     * @param builder The complete request.
+     * @param sender  Sends the request if no identical one is in flight.
+     * @return The response.
+     * @throws IOException If the request fails; waiting callers get the same failure.
+     */
+    HttpResponse<InputStream> send(HttpRequest.Builder builder, RequestSender sender) throws IOException {
+        HttpRequest request = builder.build();
+        String key = key(request);
+        if (key == null) {
+            return sender.send(builder);
+        }
+
+        Pending shared = new Pending();
+        Pending pending = this.inFlight.putIfAbsent(key, shared);
+        if (pending != null) {
+            if (!pending.attach()) {
+                return sender.send(builder);
+            }
+            Shared result = await(pending.result, request);
+            return result.body != null ? result.toResponse(request) : sender.send(builder);
+        }
+
+        HttpResponse<InputStream> response;
+        try {
+            response = sender.send(builder);
+        } catch (IOException | RuntimeException | Error e) {
+            finish(key, shared, null, e);
+            throw e;
+        }
+        return shared.seal() ? passThrough(key, shared, response) : share(key, shared, response);
+    }
+
+    /**
+     * Sends a request without blocking or attaches to an identical one in flight.
+     *
+     * @param builder The complete request.
+     * @param sender  Sends the request if no identical one is in flight.
+     * @return The future response.
+     */
+    CompletableFuture<HttpResponse<InputStream>> sendAsync(HttpRequest.Builder builder, RequestSender.Async sender) {
+        HttpRequest request = builder.build();
+        String key = key(request);
+        if (key == null) {
+            return sender.sendAsync(builder);
+        }
+
+        Pending shared = new Pending();
+        Pending pending = this.inFlight.putIfAbsent(key, shared);
+        if (pending != null) {
+            if (!pending.attach()) {
+                return sender.sendAsync(builder);
+            }
+            return pending.result.thenCompose(result -> result.body != null
+                    ? CompletableFuture.completedFuture(result.toResponse(request))
+                    : sender.sendAsync(builder));
+        }
+
+        // Ein synchroner Fehler des Senders darf den Eintrag nicht liegen lassen
+        return CompletableFuture.completedFuture(builder).thenCompose(sender::sendAsync).handle((response, error) -> {
+            if (error != null) {
+                finish(key, shared, null, error);
+                throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+            }
+            return response;
+        }).thenCompose(response -> {
+            if (shared.seal()) {
+                return CompletableFuture.completedFuture(passThrough(key, shared, response));
+            }
+            // Das Puffern blockiert, also nicht im Thread des HttpClient
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return share(key, shared, response);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            });
+        });
+    }
+
+    private static String key(HttpRequest request) {
+        if (!HttpHandler.GET.equals(request.method())) {
+            return null;
+        }
+        return request.uri() + "\n" + request.headers().firstValue("Authorization").orElse("");
+    }
+
+    /**
+     * Hands the first caller's response over unbuffered because nobody has attached to it.
+     *
+     * @return The response for the first caller.
+     */
+    private HttpResponse<InputStream> passThrough(String key, Pending shared, HttpResponse<InputStream> response) {
+        finish(key, shared, new Shared(response.statusCode(), response.headers(), response.version(), null), null);
+        return response;
+    }
+
+    /**
+     * Buffers the body of the first caller's response and hands it to the waiting callers.
+     *
+     * @return The response for the first caller.
+     */
+    private HttpResponse<InputStream> share(String key, Pending shared, HttpResponse<InputStream> response) throws IOException {
+        InputStream in = response.body();
+        byte[] body;
+        try {
+            body = in.readNBytes(MAX_SHARED_BODY + 1);
+        } catch (IOException | RuntimeException e) {
+            finish(key, shared, null, e);
+            throw e;
+        }
+
+        if (body.length > MAX_SHARED_BODY) {
+            // Wartende senden selbst, der erste Aufrufer liest den Rest direkt
+            finish(key, shared, new Shared(response.statusCode(), response.headers(), response.version(), null), null);
+            return new BufferedResponse(response.request(), response.statusCode(), response.headers(), response.version(),
+                    new SequenceInputStream(new ByteArrayInputStream(body), in));
+        }
+        in.close();
+        Shared result = new Shared(response.statusCode(), response.headers(), response.version(), body);
+        finish(key, shared, result, null);
+        return result.toResponse(response.request());
+    }
+
+    private void finish(String key, Pending shared, Shared result, Throwable error) {
+        // Erst austragen, dann abschließen: spätere Aufrufer senden neu
+        this.inFlight.remove(key, shared);
+        if (error != null) {
+            shared.result.completeExceptionally(error);
+        } else {
+            shared.result.complete(result);
+        }
+    }
+
+    /**
+     * Waits for the request in flight, at most as long as the request's own timeout.
+     *
+     * @throws HttpTimeoutException If the request in flight takes longer.
+     */
+    private static Shared await(CompletableFuture<Shared> pending, HttpRequest request) throws IOException {
+        Duration timeout = request.timeout().orElseGet(HttpHandler::getRequestTimeout);
+        try {
+            return pending.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new HttpTimeoutException("Request to " + request.uri() + " timed out.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Request to " + request.uri() + " was interrupted.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                    ? e.getCause().getCause()
+                    : e.getCause();
+            if (cause instanceof IOException) {
+                throw new IOException(cause.getMessage(), cause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * A request in flight and the callers waiting for it.
+     */
+    private static final class Pending {
+        private final CompletableFuture<Shared> result = new CompletableFuture<>();
+        /** Anzahl der Wartenden, -1 sobald die Antwort ungepuffert weitergegeben wird. */
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        /**
+         * Registers a waiting caller.
+         *
+         * @return false if the response is already passed through unbuffered.
+         */
+        private boolean attach() {
+            int count;
+            do {
+                count = this.waiters.get();
+                if (count < 0) {
+                    return false;
+                }
+            } while (!this.waiters.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        /**
+         * Closes the request to further callers if nobody has attached yet.
+         *
+         * @return true if nobody is waiting and the response can be passed through.
+         */
+        private boolean seal() {
+            return this.waiters.compareAndSet(0, -1);
+        }
+    }
+
+    /**
+     * The outcome of a shared request.
+     */
+    private static final class Shared {
+        private final int statusCode;
+        private final HttpHeaders headers;
+        private final HttpClient.Version version;
+        private final byte[] body;
+
+        private Shared(int statusCode, HttpHeaders headers, HttpClient.Version version, byte[] body) {
+            this.statusCode = statusCode;
+            this.headers = headers;
+            this.version = version;
+            this.body = body;
+        }
+
+        private HttpResponse<InputStream> toResponse(HttpRequest request) {
+            return new BufferedResponse(request, this.statusCode, this.headers, this.version, new ByteArrayInputStream(this.body));
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+package util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The stages a request of {@link HttpHandler} passes on its way to the server.
+ * <p>
+ * In order: the metrics measure the whole exchange, the {@link RequestCoalescer} shares
+ * identical GET requests in flight, the {@link HttpCache} answers or revalidates cached
+ * GET requests, the {@link HostGuard} applies retries, hedging and the circuit breaker of
+ * the host, and finally the {@link HttpTransport}, by default the shared client, sends
+ * the request. Compressed responses are decoded right after the transport, so every
+ * stage sees the plain body. Stages that are not configured are skipped.
+ * </p>
+ */
+final class RequestPipeline {
+    private final HttpTransport transport;
+    private final HttpCache cache;
+    private final RequestCoalescer coalescer;
+    private final HttpMetrics metrics;
+    private final HostGuard guard;
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param transport The transport that delivers the request.
+     * @param cache     The response cache, or null to send every request.
+     * @param coalescer Shares identical GET requests in flight, or null to send each one.
+     * @param metrics   Measures the requests, or null.
+     * @param guard     Applies the host policies, or null.
+     */
+    RequestPipeline(HttpTransport transport, HttpCache cache, RequestCoalescer coalescer, HttpMetrics metrics, HostGuard guard) {
+        this.transport = transport;
+        this.cache = cache;
+        this.coalescer = coalescer;
+        this.metrics = metrics;
+        this.guard = guard;
+    }
+
+    /**
+     * Sends a request through all stages, blocking until the response headers have arrived.
+     *
+     * @param request      The complete request.
+     * @param uri          The target of the request.
+     * @param method       The HTTP method.
+     * @param requestBytes The size of the request body.
+     * @return The response with the unread body.
+     * @throws IOException If the request fails.
+     */
+    HttpResponse<InputStream> send(HttpRequest.Builder request, URI uri, String method, long requestBytes) throws IOException {
+        HttpMetrics.Probe probe = this.metrics != null ? this.metrics.start(uri, method, requestBytes) : null;
+        HttpResponse<InputStream> response;
+        try {
+            response = this.coalescer != null ? this.coalescer.send(request, this::cached) : cached(request);
+        } catch (IOException | RuntimeException e) {
+            if (probe != null) {
+                probe.failed();
+            }
+            throw e;
+        }
+        return probe != null ? probe.track(response) : response;
+    }
+
+    /**
+     * Sends a request through all stages without blocking.
+     *
+     * @param request      The complete request.
+     * @param uri          The target of the request.
+     * @param method       The HTTP method.
+     * @param requestBytes The size of the request body.
+     * @return The future response with the unread body.
+     */
+    CompletableFuture<HttpResponse<InputStream>> sendAsync(HttpRequest.Builder request, URI uri, String method, long requestBytes) {
+        HttpMetrics.Probe probe = this.metrics != null ? this.metrics.start(uri, method, requestBytes) : null;
+        CompletableFuture<HttpResponse<InputStream>> future = this.coalescer != null
+                ? this.coalescer.sendAsync(request, this::cachedAsync)
+                : cachedAsync(request);
+        if (probe == null) {
+            return future;
+        }
+        return future.whenComplete((response, error) -> {
+            if (error != null) {
+                probe.failed();
+            }
+        }).thenApply(probe::track);
+    }
+
+    private HttpResponse<InputStream> cached(HttpRequest.Builder request) throws IOException {
+        return this.cache != null ? this.cache.send(request, this::guarded) : guarded(request);
+    }
+
+    private CompletableFuture<HttpResponse<InputStream>> cachedAsync(HttpRequest.Builder request) {
+        return this.cache != null ? this.cache.sendAsync(request, this::guardedAsync) : guardedAsync(request);
+    }
+
+    private HttpResponse<InputStream> guarded(HttpRequest.Builder request) throws IOException {
+        return this.guard != null ? this.guard.send(request, this::network, this::networkAsync, this.metrics) : network(request);
+    }
+
+    private CompletableFuture<HttpResponse<InputStream>> guardedAsync(HttpRequest.Builder request) {
+        return this.guard != null ? this.guard.sendAsync(request, this::networkAsync, this.metrics) : networkAsync(request);
+    }
+
+    private HttpResponse<InputStream> network(HttpRequest.Builder request) throws IOException {
+        return ContentDecoding.decode(this.transport.send(request.build()));
+    }
+
+    private CompletableFuture<HttpResponse<InputStream>> networkAsync(HttpRequest.Builder request) {
+        return this.transport.sendAsync(request.build()).thenApply(ContentDecoding::decode);
+    }
+
+}
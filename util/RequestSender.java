@@ -0,0 +1,40 @@
+package util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One stage of the way a request takes to the server, e.g. the cache or the client itself.
+ * Each stage gets the complete request and hands it on to the next stage or answers it.
+ */
+@FunctionalInterface
+interface RequestSender {
+
+    /**
+     * Sends a request, blocking until the response headers have arrived.
+     *
+     * @param request The complete request; a stage may copy it and add headers.
+     * @return The response with the unread body.
+     * @throws IOException If the request fails.
+     */
+    HttpResponse<InputStream> send(HttpRequest.Builder request) throws IOException;
+
+    /**
+     * The non-blocking counterpart of a {@link RequestSender}.
+     */
+    @FunctionalInterface
+    interface Async {
+
+        /**
+         * Sends a request without blocking.
+         *
+         * @param request The complete request; a stage may copy it and add headers.
+         * @return The future response with the unread body.
+         */
+        CompletableFuture<HttpResponse<InputStream>> sendAsync(HttpRequest.Builder request);
+    }
+
+}
@@ -0,0 +1,154 @@
+package util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Consumes the body of an HTTP response directly from its byte stream.
+ * <p>
+ * Used with {@link HttpHandler#getResponse(java.net.HttpURLConnection, ResponseConsumer)}:
+ * the body is neither decoded into a {@code String} nor split into lines first, so a
+ * consumer sees the exact bytes the server sent and large responses need no memory
+ * beyond what the consumer keeps.
+ * </p>
+ *
+ * @param <T> The result of consuming the body.
+ */
+@FunctionalInterface
+public interface ResponseConsumer<T> {
+
+    /**
+     * Consumes the response body. The stream is closed by the caller afterwards.
+     *
+     * @param body The response body, empty for 204 No Content.
+     * @return The result.
+     * @throws IOException    If reading the body fails.
+     * @throws ParseException If the body cannot be parsed.
+     */
+    T consume(InputStream body) throws IOException, ParseException;
+
+    /**
+     * Parses the body as a JSON object.
+     *
+     * @return A consumer returning the parsed JSONObject.
+     */
+    static ResponseConsumer<JSONObject> toObject() {
+        return JsonParser::toObject;
+    }
+
+    /**
+     * Parses the body as a JSON array.
+     *
+     * @return A consumer returning the parsed JSONArray.
+     */
+    static ResponseConsumer<JSONArray> toArray() {
+        return JsonParser::toArray;
+    }
+
+    /**
+     * Parses the body as a JSON array element by element and maps each element as soon as
+     * it is parsed. Only the tree of one element is held at a time, never the whole array.
+     *
+     * @param <E>    The type of the mapped elements.
+     * @param mapper Maps an element, as returned by {@link JsonReader#readValue()}.
+     * @return A consumer returning the mapped elements in the order of the array.
+     */
+    static <E> ResponseConsumer<List<E>> toList(Function<Object, E> mapper) {
+        return body -> {
+            List<E> list = new ArrayList<>();
+            JsonReader reader = new JsonReader(body);
+            reader.beginArray();
+            while (reader.hasNext()) {
+                list.add(mapper.apply(reader.readValue()));
+            }
+            reader.endArray();
+            reader.endDocument();
+            return list;
+        };
+    }
+
+    /**
+     * Binds the body directly to an object, without building a JSONObject first.
+     *
+     * @param <T>    The type of the object.
+     * @param binder Reads the object.
+     * @return A consumer returning the object.
+     */
+    static <T> ResponseConsumer<T> bind(JsonBinder<T> binder) {
+        return body -> {
+            JsonReader reader = new JsonReader(body);
+            T result = binder.read(reader);
+            reader.endDocument();
+            return result;
+        };
+    }
+
+    /**
+     * Binds the body, a JSON array, element by element directly to objects, without
+     * building a JSONObject for any element.
+     *
+     * @param <E>    The type of the elements.
+     * @param binder Reads one element.
+     * @return A consumer returning the elements in the order of the array.
+     */
+    static <E> ResponseConsumer<List<E>> bindList(JsonBinder<E> binder) {
+        return body -> {
+            List<E> list = new ArrayList<>();
+            JsonReader reader = new JsonReader(body);
+            reader.beginArray();
+            while (reader.hasNext()) {
+                list.add(binder.read(reader));
+            }
+            reader.endArray();
+            reader.endDocument();
+            return list;
+        };
+    }
+
+    /**
+     * Parses the body as a JSON array element by element and hands each element to an
+     * action as soon as it is parsed. Only the tree of one element is held at a time.
+     *
+     * @param action Receives each element, as returned by {@link JsonReader#readValue()}.
+     * @return A consumer returning the number of elements.
+     */
+    static ResponseConsumer<Integer> forEach(Consumer<Object> action) {
+        return body -> {
+            int count = 0;
+            JsonReader reader = new JsonReader(body);
+            reader.beginArray();
+            while (reader.hasNext()) {
+                action.accept(reader.readValue());
+                count++;
+            }
+            reader.endArray();
+            reader.endDocument();
+            return count;
+        };
+    }
+
+    /**
+     * Writes the body to a file, replacing an existing file.
+     *
+     * @param file The target file.
+     * @return A consumer returning the target file.
+     */
+    static ResponseConsumer<Path> toFile(Path file) {
+        return body -> {
+            Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+            return file;
+        };
+    }
+
+}